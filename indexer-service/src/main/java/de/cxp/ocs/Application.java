@@ -1,10 +1,13 @@
 package de.cxp.ocs;
 
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 
 import org.elasticsearch.client.RestClientBuilder;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.context.annotation.Bean;
 
@@ -29,6 +32,7 @@ import de.cxp.ocs.model.result.HierarchialFacetEntry;
 import de.cxp.ocs.plugin.PluginManager;
 import de.cxp.ocs.spi.indexer.IndexerConfigurationProvider;
 import de.cxp.ocs.util.DocumentDeserializer;
+import de.cxp.ocs.util.ExecutorFactory;
 import de.cxp.ocs.util.ProductDeserializer;
 
 @SpringBootApplication
@@ -49,6 +53,23 @@ public class Application {
 		return RestClientBuilderFactory.createRestClientBuilder(properties.getConnectionConfiguration());
 	}
 
+	@Bean
+	public ExecutorService asyncExecutor(ApplicationProperties properties) {
+		return ExecutorFactory.createExecutor(properties.getAsyncExecutor(), "ocs-indexer-async");
+	}
+
+	/**
+	 * Runs the request handling of tomcat on virtual threads, if enabled and
+	 * supported by the Java runtime.
+	 * 
+	 * @return tomcat customizer
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "ocs.async-executor.virtual-threads", havingValue = "true")
+	public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+		return protocolHandler -> ExecutorFactory.createVirtualThreadExecutor().ifPresent(protocolHandler::setExecutor);
+	}
+
 	@Bean
 	public PluginManager getPluginManager(ApplicationProperties properties) {
 		return new PluginManager(properties.getDisabledPlugins(), properties.getPreferedPlugins());
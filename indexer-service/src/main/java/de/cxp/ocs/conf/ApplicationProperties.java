@@ -10,6 +10,7 @@ import org.springframework.boot.context.properties.NestedConfigurationProperty;
 import org.springframework.stereotype.Component;
 
 import de.cxp.ocs.config.ConnectionConfiguration;
+import de.cxp.ocs.config.ExecutorConfiguration;
 import lombok.Getter;
 
 /**
@@ -31,6 +32,9 @@ public class ApplicationProperties {
 
 	private final Map<String, String> preferedPlugins = new HashMap<>();
 
+	@NestedConfigurationProperty
+	private final ExecutorConfiguration asyncExecutor = new ExecutorConfiguration();
+
 	@NestedConfigurationProperty
 	IndexConfiguration defaultIndexConfig = new IndexConfiguration();
 
@@ -10,6 +10,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -60,8 +61,9 @@ public class ElasticsearchIndexer extends AbstractIndexer {
 			FieldConfigIndex fieldConfAccess,
 			RestHighLevelClient restClient,
 			List<DocumentPreProcessor> preProcessors,
-			List<DocumentPostProcessor> postProcessors) {
-		super(preProcessors, postProcessors, fieldConfAccess);
+			List<DocumentPostProcessor> postProcessors,
+			Executor asyncExecutor) {
+		super(preProcessors, postProcessors, fieldConfAccess, asyncExecutor);
 		this.restClient = restClient;
 		this.indexSettings = settings;
 		indexClient = new ElasticsearchIndexClient(restClient);
@@ -11,6 +11,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.commons.lang3.LocaleUtils;
 import org.apache.commons.lang3.time.DurationFormatUtils;
@@ -45,11 +47,22 @@ public abstract class AbstractIndexer implements FullIndexationService, UpdateIn
 
 	private final IndexItemConverter indexItemConverter;
 
+	private final Executor asyncExecutor;
+
 	public AbstractIndexer(
 			@NonNull List<DocumentPreProcessor> dataPreProcessors,
 			@NonNull List<DocumentPostProcessor> postProcessors,
 			@NonNull FieldConfigIndex fieldConfIndex) {
+		this(dataPreProcessors, postProcessors, fieldConfIndex, ForkJoinPool.commonPool());
+	}
+
+	public AbstractIndexer(
+			@NonNull List<DocumentPreProcessor> dataPreProcessors,
+			@NonNull List<DocumentPostProcessor> postProcessors,
+			@NonNull FieldConfigIndex fieldConfIndex,
+			@NonNull Executor asyncExecutor) {
 		this.dataPreProcessors = dataPreProcessors;
+		this.asyncExecutor = asyncExecutor;
 		this.fieldConfIndex = fieldConfIndex;
 		combiFieldBuilder = new CombiFieldBuilder(fieldConfIndex.getFieldsByType(FieldType.COMBI));
 		indexItemConverter = new IndexItemConverter(fieldConfIndex, postProcessors);
@@ -62,7 +75,7 @@ public abstract class AbstractIndexer implements FullIndexationService, UpdateIn
 		}
 		if (isImportRunning(indexName)) {
 			log.warn("Another import for index {} is already running! Will start a new one never the less...", indexName);
-			CompletableFuture.runAsync(() -> this.cleanupAbandonedImports(indexName, locale));
+			CompletableFuture.runAsync(() -> this.cleanupAbandonedImports(indexName, locale), asyncExecutor);
 		}
 
 		try {
@@ -1,9 +1,12 @@
 package de.cxp.ocs.indexer;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
-import java.util.function.Predicate;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import de.cxp.ocs.conf.FieldUsageApplier;
 import de.cxp.ocs.config.Field;
@@ -18,6 +21,7 @@ import de.cxp.ocs.model.index.Product;
 import de.cxp.ocs.spi.indexer.DocumentPostProcessor;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
 
 /**
  * converts {@link Document} / {@link Product} objects into
@@ -32,6 +36,31 @@ public class IndexItemConverter {
 	@NonNull
 	private final List<DocumentPostProcessor>	postProcessors;
 
+	/**
+	 * Limit for the amount of remembered field resolutions. This should be far
+	 * above the amount of distinct data field and attribute names.
+	 */
+	static final int MAX_MEMOIZED_FIELDS = 10_000;
+
+	private static final int	ATTRIBUTE_VALUE	= 1;
+	private static final int	NUMBER_VALUE	= 2;
+	private static final int	VARIANT_LEVEL	= 4;
+
+	/**
+	 * The fields that match a data field or attribute name at a certain
+	 * document level, so they don't have to be resolved again for every
+	 * document of an import.
+	 */
+	private final Map<MatchingFieldsKey, List<Field>> matchingFieldsMemo = new ConcurrentHashMap<>();
+
+	@Value
+	private static class MatchingFieldsKey {
+
+		String name;
+
+		int flags;
+	}
+
 	public IndexItemConverter(FieldConfigIndex fieldConfigIndex) {
 		this(fieldConfigIndex, Collections.emptyList());
 	}
@@ -75,30 +104,57 @@ public class IndexItemConverter {
 
 	private void extractSourceValues(Document sourceDoc, final DataItem targetItem) {
 		final boolean isVariant = (targetItem instanceof VariantItem);
-		Predicate<Field> fieldAtCorrectDocLevelPredicate = isVariant ? this::isFieldAtVariantLevel : this::isFieldAtMasterLevel;
 
 		if (sourceDoc.getData() != null) {
 			for (Entry<String, Object> dataField : sourceDoc.getData().entrySet()) {
-				fieldConfigIndex.getMatchingFields(dataField.getKey(), dataField.getValue())
-						.stream()
-						.filter(fieldAtCorrectDocLevelPredicate)
-						.forEach(field -> FieldUsageApplier.applyAll(targetItem, field, dataField.getValue()));
+				for (Field field : getMatchingFields(dataField.getKey(), dataField.getValue(), isVariant)) {
+					FieldUsageApplier.applyAll(targetItem, field, dataField.getValue());
+				}
 			}
 		}
 
 		if (sourceDoc.getAttributes() != null) {
 			for (Attribute attribute : sourceDoc.getAttributes()) {
 				if (attribute == null || attribute.value == null || attribute.name == null) continue;
-				fieldConfigIndex.getMatchingFields(attribute.name, attribute)
-						.stream()
-						.filter(fieldAtCorrectDocLevelPredicate)
-						.forEach(field -> FieldUsageApplier.applyAll(targetItem, field, attribute));
+				for (Field field : getMatchingFields(attribute.name, attribute, isVariant)) {
+					FieldUsageApplier.applyAll(targetItem, field, attribute);
+				}
 			}
 		}
 
 		fieldConfigIndex.getPrimaryCategoryField().ifPresent(f -> FieldUsageApplier.applyAll(targetItem, f, sourceDoc.getCategories()));
 	}
 
+	/**
+	 * Get the fields that match the given name and value at the according
+	 * document level. Once a name matched a field, the same fields are
+	 * returned for every value, so that result is remembered. Empty results
+	 * are not remembered, because a later value of the same name may still
+	 * match a dynamic field, which then also applies to all other values.
+	 */
+	private List<Field> getMatchingFields(String name, Object value, boolean isVariant) {
+		Object plainValue = value instanceof Attribute ? ((Attribute) value).getValue() : value;
+		int flags = (value instanceof Attribute ? ATTRIBUTE_VALUE : 0)
+				| (plainValue instanceof Number ? NUMBER_VALUE : 0)
+				| (isVariant ? VARIANT_LEVEL : 0);
+		MatchingFieldsKey key = new MatchingFieldsKey(name, flags);
+
+		List<Field> fields = matchingFieldsMemo.get(key);
+		if (fields == null) {
+			Set<Field> matchingFields = fieldConfigIndex.getMatchingFields(name, value);
+			fields = new ArrayList<>(matchingFields.size());
+			for (Field field : matchingFields) {
+				if (isVariant ? isFieldAtVariantLevel(field) : isFieldAtMasterLevel(field)) {
+					fields.add(field);
+				}
+			}
+			if (!matchingFields.isEmpty() && matchingFieldsMemo.size() < MAX_MEMOIZED_FIELDS) {
+				matchingFieldsMemo.put(key, fields);
+			}
+		}
+		return fields;
+	}
+
 	private boolean isFieldAtVariantLevel(Field field) {
 		return (field.isBothLevel() || field.isVariantLevel());
 	}
@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 
 import org.elasticsearch.client.RestHighLevelClient;
@@ -35,14 +37,19 @@ public class IndexerFactory {
 
 	private final RestHighLevelClient elasticsearchClient;
 
-	private boolean templatesInitialized = false;
+	private final ExecutorService asyncExecutor;
+
+	private volatile boolean templatesInitialized = false;
+
+	private final ReentrantLock templatesLock = new ReentrantLock();
 
 	private final Map<String, Supplier<? extends DocumentPreProcessor>> docPreProcessorSuppliers;
 
 	private final Map<String, Supplier<? extends DocumentPostProcessor>> indexableItemProcessorSuppliers;
 
-	public IndexerFactory(RestHighLevelClient elasticsearchClient, PluginManager pm) {
+	public IndexerFactory(RestHighLevelClient elasticsearchClient, PluginManager pm, ExecutorService asyncExecutor) {
 		this.elasticsearchClient = elasticsearchClient;
+		this.asyncExecutor = asyncExecutor;
 
 		ExtensionSupplierRegistry<DocumentPreProcessor> docPreProcessorRegistry = new ExtensionSupplierRegistry<DocumentPreProcessor>();
 		docPreProcessorRegistry.register(AsciiFoldingDataProcessor.class, AsciiFoldingDataProcessor::new);
@@ -79,7 +86,8 @@ public class IndexerFactory {
 				new FieldConfigIndex(indexConfiguration.getFieldConfiguration()),
 				elasticsearchClient,
 				preProcessors,
-				postProcessors);
+				postProcessors,
+				asyncExecutor);
 	}
 
 	private void initializeDataProcessors(IndexConfiguration indexConfiguration, List<DocumentPreProcessor> preProcessors, List<DocumentPostProcessor> postProcessors) {
@@ -113,7 +121,8 @@ public class IndexerFactory {
 
 	private void initializeTemplates() {
 		if (!templatesInitialized) {
-			synchronized (this) {
+			templatesLock.lock();
+			try {
 				if (!templatesInitialized) {
 					try {
 						ElasticsearchBeyonder.start(elasticsearchClient.getLowLevelClient(), Defaults.ConfigDir, Defaults.MergeMappings, true);
@@ -124,6 +133,9 @@ public class IndexerFactory {
 					}
 				}
 			}
+			finally {
+				templatesLock.unlock();
+			}
 		}
 	}
 
@@ -7,7 +7,7 @@ import static de.cxp.ocs.config.FieldUsage.FACET;
 import static de.cxp.ocs.config.FieldUsage.RESULT;
 import static de.cxp.ocs.config.FieldUsage.SEARCH;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
@@ -61,6 +61,7 @@ public class ElasticsearchFullIndexationTest {
 		});
 
 		when(mockedIndexClient.indexRecords(any(), any())).thenReturn(Optional.empty());
+		when(mockedIndexClient.getDocCount(any())).thenReturn(2L);
 		underTest.add(data);
 		verify(mockedIndexClient).indexRecords((String) argThat(new Equals(importSession.temporaryIndexName)), any());
 
@@ -70,9 +71,9 @@ public class ElasticsearchFullIndexationTest {
 
 
 	@Test
-	public void testImportSessionNeverFinished() {
+	public void testImportStartsWhileOtherImportIsRunning() {
 		when(mockedIndexClient.getAliases("ocs-*-test*")).thenReturn(Collections.singletonMap("ocs-1-test-de", Collections.emptySet()));
-		assertThrows(IllegalStateException.class, () -> underTest.startImport("test", "de"));
+		assertNotNull(underTest.startImport("test", "de"));
 	}
 
 	private IndexConfiguration getIndexConf() {
@@ -95,9 +95,9 @@ public class IndexItemConverterTest {
 		assertTrue(result.getTermFacetData().isEmpty());
 		assertTrue(result.getSortData().isEmpty());
 
-		assertThrows(Exception.class,
-				() -> underTest.toIndexableItem(new Document("2").set("rating", "invalid content")),
-				"document with invalid rating field should cause exception");
+		// non-numeric values are kept for the date detection
+		result = underTest.toIndexableItem(new Document("2").set("rating", "invalid content"));
+		assertEquals("invalid content", result.getScores().get("rating"));
 	}
 
 	@SuppressWarnings("unchecked")
@@ -253,6 +253,28 @@ public class IndexItemConverterTest {
 		assertEquals(41.5f, result.getNumberFacetData().get(0).getValue());
 	}
 
+	@Test
+	public void testDynamicFieldResolutionWithRepeatedAttributes() {
+		underTest = new IndexItemConverter(
+				new FieldConfigIndex(
+						new FieldConfiguration()
+								.addDynamicField(new Field("attribute").setType(FieldType.NUMBER).setUsage(FieldUsage.FACET))));
+
+		// non-numeric value must not prevent a later match of the same
+		// attribute
+		IndexableItem result = underTest.toIndexableItem(new Document("1")
+				.setAttributes(new Attribute().setName("size").setValue("XL")));
+		assertTrue(result.getNumberFacetData().isEmpty());
+
+		for (int i = 2; i < 5; i++) {
+			result = underTest.toIndexableItem(new Document(String.valueOf(i))
+					.setAttributes(new Attribute().setName("size").setValue(String.valueOf(40 + i))));
+			assertEquals(1, result.getNumberFacetData().size());
+			assertEquals("size", result.getNumberFacetData().get(0).getName());
+			assertEquals(40 + i, result.getNumberFacetData().get(0).getValue());
+		}
+	}
+
 	/**
 	 * If no dynamic field is configured, attributes will be dropped (unless
 	 * they match a exact field name)
@@ -376,4 +398,24 @@ public class IndexItemConverterTest {
 		assertTrue(result.getTermFacetData().isEmpty());
 		assertTrue(result.getNumberFacetData().isEmpty());
 	}
+
+	@Test
+	public void testNumberValueUsesFieldGeneratedByLaterValue() {
+		underTest = new IndexItemConverter(
+				new FieldConfigIndex(
+						new FieldConfiguration()
+								.addDynamicField(new Field("data").setType(FieldType.STRING).setUsage(FieldUsage.RESULT))));
+
+		// numeric value does not match the string typed dynamic field
+		IndexableItem result = underTest.toIndexableItem(new Document("1").set("size", 42));
+		assertTrue(result.getResultData().isEmpty());
+
+		// string value generates the field 'size'
+		result = underTest.toIndexableItem(new Document("2").set("size", "XL"));
+		assertEquals("XL", result.getResultData().get("size"));
+
+		// which is then used for numeric values as well
+		result = underTest.toIndexableItem(new Document("3").set("size", 43));
+		assertEquals(43, result.getResultData().get("size"));
+	}
 }
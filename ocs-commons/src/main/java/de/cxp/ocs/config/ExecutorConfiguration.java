@@ -0,0 +1,26 @@
+package de.cxp.ocs.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutorConfiguration {
+
+	/**
+	 * If set to true, a new virtual thread is started for every async task.
+	 * This requires a Java runtime with virtual thread support (Java 21+),
+	 * otherwise it falls back to the 'threads' setting.
+	 */
+	private boolean virtualThreads = false;
+
+	/**
+	 * Size of the fixed thread pool that runs the async tasks. If set to 0,
+	 * the common fork-join pool is used.
+	 */
+	private int threads = 0;
+}
@@ -4,12 +4,14 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 
@@ -36,27 +38,55 @@ public final class FieldConfigIndex implements FieldConfigAccess {
 		Field				fieldConfig;
 
 		public boolean matches(String fieldName, Object value) {
-			return (fieldNamePredicate == null || fieldNamePredicate.test(fieldName))
-					&& (valuePredicate == null || valuePredicate.test(value));
+			return matchesName(fieldName) && matchesValue(value);
+		}
+
+		boolean matchesName(String fieldName) {
+			return fieldNamePredicate == null || fieldNamePredicate.test(fieldName);
+		}
+
+		boolean matchesValue(Object value) {
+			return valuePredicate == null || valuePredicate.test(value);
 		}
 	}
 
+	/**
+	 * Limit for the amount of field names, for which the matching dynamic
+	 * field configurations are remembered. This should be far above the amount
+	 * of distinct attribute names.
+	 */
+	static final int MAX_MEMOIZED_NAMES = 10_000;
+
+	/**
+	 * Getter and setter pairs of all Field properties, used to clone the
+	 * dynamic field configurations.
+	 */
+	private static final List<Method[]> FIELD_PROPERTY_ACCESSORS = getFieldPropertyAccessors();
+
 	@Getter
 	private final Map<String, Field> fields = new HashMap<>();
 
 	private final Map<String, List<Field>> fieldsBySource = new HashMap<>();
 
-	private final Map<String, Field> generatedFields = new HashMap<>();
+	// generated fields are added while the index is used, so these maps must
+	// be thread-safe
+	private final Map<String, Field> generatedFields = new ConcurrentHashMap<>();
 
-	private final Map<FieldUsage, Map<String, Field>> fieldsByUsage = new HashMap<>();
+	private final Map<FieldUsage, Map<String, Field>> fieldsByUsage = new EnumMap<>(FieldUsage.class);
 
-	private final Map<FieldType, Map<String, Field>> fieldsByType = new HashMap<>();
+	private final Map<FieldType, Map<String, Field>> fieldsByType = new EnumMap<>(FieldType.class);
 
 	@Getter
 	private final Optional<Field> primaryCategoryField;
 
 	private final List<DynamicFieldConfig> dynamicFields = new ArrayList<>();
 
+	/**
+	 * Dynamic field configurations per field name, whose name pattern matches
+	 * that field name. This way the patterns are only tested once per name.
+	 */
+	private final Map<String, List<DynamicFieldConfig>> dynamicFieldsByName = new ConcurrentHashMap<>();
+
 	/**
 	 * Constructor of the Field Index that prepares the given field
 	 * configurations to match static and dynamic fields.
@@ -65,6 +95,7 @@ public final class FieldConfigIndex implements FieldConfigAccess {
 	 *        full field configuration
 	 */
 	public FieldConfigIndex(FieldConfiguration fieldConfiguration) {
+		prepareFieldIndexes();
 
 		// create name based index of standard fields
 		fields.putAll(fieldConfiguration.getFields());
@@ -129,13 +160,26 @@ public final class FieldConfigIndex implements FieldConfigAccess {
 		primaryCategoryField = determineDefaultCategoryField(categoryFields);
 	}
 
+	/**
+	 * The enum maps are prepared with all usages and types, so afterwards
+	 * only the inner maps are modified.
+	 */
+	private void prepareFieldIndexes() {
+		for (FieldUsage usage : FieldUsage.values()) {
+			fieldsByUsage.put(usage, new ConcurrentHashMap<>());
+		}
+		for (FieldType type : FieldType.values()) {
+			fieldsByType.put(type, new ConcurrentHashMap<>());
+		}
+	}
+
 	private void updateFieldIndexes(Field f) {
 		for (FieldUsage usage : f.getUsage()) {
-			fieldsByUsage.computeIfAbsent(usage, x -> new HashMap<>())
-					.put(f.getName(), f);
+			fieldsByUsage.get(usage).put(f.getName(), f);
+		}
+		if (f.getType() != null) {
+			fieldsByType.get(f.getType()).put(f.getName(), f);
 		}
-		fieldsByType.computeIfAbsent(f.getType(), x -> new HashMap<>())
-				.put(f.getName(), f);
 	}
 
 	public Map<String, Field> getFieldsByUsage(FieldUsage usage) {
@@ -248,21 +292,45 @@ public final class FieldConfigIndex implements FieldConfigAccess {
 
 		// return first matching dynamic field
 		Field generatedField = null;
-		if (dynamicFields != null) {
-			for (DynamicFieldConfig dynamicFieldConf : dynamicFields) {
-				if (dynamicFieldConf.matches(fieldName, value)) {
-					generatedField = cloneField(dynamicFieldConf.fieldConfig);
-					generatedField.setName(fieldName);
-					generatedFields.put(fieldName, generatedField);
+		for (DynamicFieldConfig dynamicFieldConf : getNameMatchingDynamicFields(fieldName)) {
+			if (dynamicFieldConf.matchesValue(value)) {
+				generatedField = cloneField(dynamicFieldConf.fieldConfig);
+				generatedField.setName(fieldName);
+				Field concurrentlyGeneratedField = generatedFields.putIfAbsent(fieldName, generatedField);
+				if (concurrentlyGeneratedField != null) {
+					generatedField = concurrentlyGeneratedField;
+				}
+				else {
 					updateFieldIndexes(generatedField);
-					break;
 				}
+				break;
 			}
 		}
 
 		return generatedField == null ? Collections.emptySet() : Collections.singleton(generatedField);
 	}
 
+	private List<DynamicFieldConfig> getNameMatchingDynamicFields(String fieldName) {
+		if (dynamicFields.isEmpty()) return Collections.emptyList();
+
+		List<DynamicFieldConfig> nameMatchingFields = dynamicFieldsByName.get(fieldName);
+		if (nameMatchingFields == null) {
+			nameMatchingFields = new ArrayList<>(1);
+			for (DynamicFieldConfig dynamicFieldConf : dynamicFields) {
+				if (dynamicFieldConf.matchesName(fieldName)) {
+					nameMatchingFields.add(dynamicFieldConf);
+				}
+			}
+			if (nameMatchingFields.isEmpty()) {
+				nameMatchingFields = Collections.emptyList();
+			}
+			if (dynamicFieldsByName.size() < MAX_MEMOIZED_NAMES) {
+				dynamicFieldsByName.put(fieldName, nameMatchingFields);
+			}
+		}
+		return nameMatchingFields;
+	}
+
 	/**
 	 * /**
 	 * Similar to {@code getMatchingField(String, Object)} but additionally
@@ -281,14 +349,13 @@ public final class FieldConfigIndex implements FieldConfigAccess {
 				.findFirst();
 	}
 
-	private static Field cloneField(final Field original) {
-		final Field clone = new Field();
+	private static List<Method[]> getFieldPropertyAccessors() {
+		List<Method[]> accessors = new ArrayList<>();
 		for (Method m : Field.class.getMethods()) {
 			if (m.getName().startsWith("set") && m.getParameterCount() == 1) {
 				try {
 					Method getter = Field.class.getMethod(m.getName().replaceFirst("set", "get"));
-					Object property = getter.invoke(original);
-					m.invoke(clone, property);
+					accessors.add(new Method[] { getter, m });
 				}
 				catch (Exception e) {
 					throw new IllegalStateException(
@@ -296,6 +363,19 @@ public final class FieldConfigIndex implements FieldConfigAccess {
 				}
 			}
 		}
+		return accessors;
+	}
+
+	private static Field cloneField(final Field original) {
+		final Field clone = new Field();
+		for (Method[] accessor : FIELD_PROPERTY_ACCESSORS) {
+			try {
+				accessor[1].invoke(clone, accessor[0].invoke(original));
+			}
+			catch (Exception e) {
+				throw new IllegalStateException("problem cloning property with setter method '" + accessor[1].getName() + "'", e);
+			}
+		}
 		return clone;
 	}
 
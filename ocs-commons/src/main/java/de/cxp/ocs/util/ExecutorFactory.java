@@ -0,0 +1,62 @@
+package de.cxp.ocs.util;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import de.cxp.ocs.config.ExecutorConfiguration;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public final class ExecutorFactory {
+
+	private ExecutorFactory() {}
+
+	/**
+	 * Creates the executor for async tasks according to the given
+	 * configuration.
+	 * 
+	 * @param executorConf
+	 *        executor configuration
+	 * @param threadNamePrefix
+	 *        prefix for the names of the created threads
+	 * @return executor service
+	 */
+	public static ExecutorService createExecutor(@NonNull final ExecutorConfiguration executorConf, @NonNull final String threadNamePrefix) {
+		if (executorConf.isVirtualThreads()) {
+			Optional<ExecutorService> virtualThreadExecutor = createVirtualThreadExecutor();
+			if (virtualThreadExecutor.isPresent()) {
+				log.info("using virtual threads for async tasks");
+				return virtualThreadExecutor.get();
+			}
+		}
+		if (executorConf.getThreads() > 0) {
+			log.info("using fixed thread pool with {} threads for async tasks", executorConf.getThreads());
+			return Executors.newFixedThreadPool(executorConf.getThreads(), new ThreadFactoryBuilder()
+					.setNameFormat(threadNamePrefix + "-%d")
+					.setDaemon(true)
+					.build());
+		}
+		return ForkJoinPool.commonPool();
+	}
+
+	/**
+	 * The code is compiled for Java 8, so the virtual thread executor can only
+	 * be created via reflection.
+	 * 
+	 * @return the executor or empty if not supported by the runtime
+	 */
+	public static Optional<ExecutorService> createVirtualThreadExecutor() {
+		try {
+			return Optional.of((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+		}
+		catch (ReflectiveOperationException e) {
+			log.warn("virtual threads are not supported by the Java runtime {}", System.getProperty("java.version"));
+			return Optional.empty();
+		}
+	}
+}
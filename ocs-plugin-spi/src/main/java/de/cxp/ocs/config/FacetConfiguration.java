@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
@@ -12,6 +13,7 @@ import lombok.RequiredArgsConstructor;
 
 @Getter // write setters with java-doc!
 @NoArgsConstructor
+@EqualsAndHashCode
 public class FacetConfiguration {
 
 	private FacetConfig defaultFacetConfiguration = new FacetConfig();
@@ -20,6 +22,8 @@ public class FacetConfiguration {
 
 	private int maxFacets = 5;
 
+	private int samplingThreshold = 0;
+
 	/**
 	 * A list of fine grained facet configurations. Each facet configuration
 	 * controls the return value of one specific facet.
@@ -48,6 +52,29 @@ public class FacetConfiguration {
 		return this;
 	}
 
+	/**
+	 * If set to a value greater than 0, the facets of queries that matched
+	 * more documents than that threshold are aggregated over a sampler
+	 * aggregation that only considers that amount of best matching documents
+	 * per shard. Since the match count is only known after a search, this only
+	 * applies to queries that were already seen: as soon as the same query
+	 * with the same filters is searched again. Smaller results are still aggregated exactly. If the sample
+	 * contains less documents than the total match count, the facet counts
+	 * are approximate, which is flagged at the facet meta data with
+	 * 'approximateCounts'. This reduces the aggregation time of broad queries
+	 * with a huge amount of matches.
+	 * Default: 0 (disabled)
+	 * 
+	 * @param samplingThreshold
+	 *        match count above which the facets are sampled, which is also the
+	 *        sample size per shard
+	 * @return self
+	 */
+	public FacetConfiguration setSamplingThreshold(int samplingThreshold) {
+		this.samplingThreshold = samplingThreshold;
+		return this;
+	}
+
 	public FacetConfiguration setDefaultFacetConfiguration(de.cxp.ocs.config.FacetConfiguration.FacetConfig defaultFacetConfiguration) {
 		this.defaultFacetConfiguration = defaultFacetConfiguration;
 		return this;
@@ -56,6 +83,7 @@ public class FacetConfiguration {
 	@Getter // write setters with java-doc!
 	@NoArgsConstructor
 	@RequiredArgsConstructor
+	@EqualsAndHashCode
 	public static class FacetConfig {
 
 		@NonNull
@@ -67,5 +67,15 @@ public enum QueryBuildingSetting {
 	 * If set to true, no other query will be used after this one, even if it
 	 * returned 0 results.
 	 */
-	acceptNoResult
+	acceptNoResult,
+
+	/**
+	 * Only used by the PredictionQuery: Strategy to count the matches of the
+	 * single terms and their combinations. One of 'script' (default), which
+	 * uses a histogram aggregation on the document score, or 'filters', which
+	 * uses a filters aggregation with one filter per term combination and
+	 * avoids scripting. For queries with more than 7 terms (including
+	 * shingles) the 'script' strategy is always used.
+	 */
+	termAnalysisStrategy
 }
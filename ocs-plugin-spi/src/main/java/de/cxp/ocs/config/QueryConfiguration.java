@@ -4,6 +4,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import de.cxp.ocs.spi.search.ESQueryFactory;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
@@ -13,6 +14,7 @@ import lombok.NoArgsConstructor;
  */
 @Getter // write setters with java-doc!
 @NoArgsConstructor
+@EqualsAndHashCode
 public class QueryConfiguration {
 
 	private String name;
@@ -29,6 +31,7 @@ public class QueryConfiguration {
 	 * Describes the condition under that the particular query is constructed.
 	 */
 	@Getter // write setters with java-doc!
+	@EqualsAndHashCode
 	public static class QueryCondition {
 
 		private int		minTermCount	= 1;
@@ -5,15 +5,27 @@ import java.util.List;
 
 import de.cxp.ocs.spi.search.UserQueryAnalyzer;
 import de.cxp.ocs.spi.search.UserQueryPreprocessor;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 
 @Getter // write setters with java-doc!
+@EqualsAndHashCode
 public class QueryProcessingConfiguration {
 
 	private List<String> userQueryPreprocessors = new ArrayList<>(0);
 
 	private String userQueryAnalyzer = null;
 
+	private int queryPlanCacheSize = 0;
+
+	private int queryPlanCacheExpireAfterWriteSeconds = 3600;
+
+	private int speculativeStageCount = 0;
+
+	private boolean preQuerySpellCorrection = false;
+
+	private int queryPredictionCacheSize = 0;
+
 	/**
 	 * <p>
 	 * List of custom query preprocessors (their canonical or simple class name)
@@ -56,4 +68,112 @@ public class QueryProcessingConfiguration {
 		return this;
 	}
 
+	/**
+	 * <p>
+	 * Maximum amount of analyzed search queries for which the successful
+	 * query stage is remembered. For those queries, all the query stages that
+	 * are known to deliver no result are skipped (including the spell
+	 * correction round trip, if necessary).
+	 * </p>
+	 * <p>
+	 * Per default it's set to 0, which disables that cache.
+	 * </p>
+	 * 
+	 * @param queryPlanCacheSize
+	 *        max amount of cached query plans
+	 * @return self
+	 */
+	public QueryProcessingConfiguration setQueryPlanCacheSize(int queryPlanCacheSize) {
+		this.queryPlanCacheSize = queryPlanCacheSize;
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Seconds after which a remembered query plan expires, so changed data
+	 * behind the same index is taken into account eventually. Independent of
+	 * that, all query plans are dropped as soon as the index behind the
+	 * tenant changes.
+	 * </p>
+	 * <p>
+	 * Per default it's set to 3600 (one hour). A value of 0 or less disables
+	 * the expiration.
+	 * </p>
+	 * 
+	 * @param queryPlanCacheExpireAfterWriteSeconds
+	 *        seconds until a query plan expires
+	 * @return self
+	 */
+	public QueryProcessingConfiguration setQueryPlanCacheExpireAfterWriteSeconds(int queryPlanCacheExpireAfterWriteSeconds) {
+		this.queryPlanCacheExpireAfterWriteSeconds = queryPlanCacheExpireAfterWriteSeconds;
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Amount of query stages that are sent together to Elasticsearch (with a
+	 * single multi-search request) instead of one after the other. The first
+	 * stage in the configured order that delivers enough hits is used, the
+	 * results of the other stages are ignored.
+	 * </p>
+	 * <p>
+	 * This reduces the latency for queries that need several stages to get a
+	 * result, but adds load to the Elasticsearch cluster. Per default it's set
+	 * to 0, which means all stages are executed sequentially. Values below 2
+	 * have the same effect.
+	 * </p>
+	 * 
+	 * @param speculativeStageCount
+	 *        amount of stages to execute at once
+	 * @return self
+	 */
+	public QueryProcessingConfiguration setSpeculativeStageCount(int speculativeStageCount) {
+		this.speculativeStageCount = speculativeStageCount;
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * If enabled, the spell corrections of single words are remembered per
+	 * index. If all words of a query are known, the misspelled words are
+	 * corrected before the first stage, so such a query is answered with a
+	 * single search request instead of a search with the original words
+	 * followed by a search with the corrected words.
+	 * </p>
+	 * <p>
+	 * Queries with unknown words request the spell corrections within the
+	 * first stage, even if the query factory of that stage does not allow
+	 * parallel spell checking, to learn about those words.
+	 * </p>
+	 * 
+	 * @param preQuerySpellCorrection
+	 *        true to request spell corrections with the first stage
+	 * @return self
+	 */
+	public QueryProcessingConfiguration setPreQuerySpellCorrection(boolean preQuerySpellCorrection) {
+		this.preQuerySpellCorrection = preQuerySpellCorrection;
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Maximum amount of term combinations for which the analysis of the
+	 * PredictionQueryFactory is cached. That analysis is a separate request
+	 * that fetches the match counts of the single terms and their
+	 * combinations. Since those counts only change with a new index, the
+	 * cached analyses are kept until the index behind the tenant changes.
+	 * </p>
+	 * <p>
+	 * Per default it's set to 0, which disables that cache.
+	 * </p>
+	 * 
+	 * @param queryPredictionCacheSize
+	 *        max amount of cached term analyses
+	 * @return self
+	 */
+	public QueryProcessingConfiguration setQueryPredictionCacheSize(int queryPredictionCacheSize) {
+		this.queryPredictionCacheSize = queryPredictionCacheSize;
+		return this;
+	}
+
 }
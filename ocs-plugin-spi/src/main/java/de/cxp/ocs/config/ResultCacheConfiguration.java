@@ -0,0 +1,78 @@
+package de.cxp.ocs.config;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Configuration of the cache for complete search results.
+ */
+@Getter // write setters with java-doc!
+@NoArgsConstructor
+@EqualsAndHashCode
+public class ResultCacheConfiguration {
+
+	private int maxEntries = 0;
+
+	private int maxMemoryMb = 64;
+
+	private int expireAfterWriteSeconds = 300;
+
+	private int maxProductSets = 0;
+
+	/**
+	 * Maximum amount of cached search results. Per default it's set to 0,
+	 * which disables the result cache.
+	 * 
+	 * @param maxEntries
+	 *        max amount of cached results
+	 * @return self
+	 */
+	public ResultCacheConfiguration setMaxEntries(int maxEntries) {
+		this.maxEntries = maxEntries;
+		return this;
+	}
+
+	/**
+	 * Maximum estimated memory size of all cached results together in
+	 * megabytes. Default: 64
+	 * 
+	 * @param maxMemoryMb
+	 *        max memory size in MB
+	 * @return self
+	 */
+	public ResultCacheConfiguration setMaxMemoryMb(int maxMemoryMb) {
+		this.maxMemoryMb = maxMemoryMb;
+		return this;
+	}
+
+	/**
+	 * Time in seconds after which a cached result is dropped. Since partial
+	 * document updates don't change the index, this limits how long such
+	 * changes are not visible. Default: 300
+	 * 
+	 * @param expireAfterWriteSeconds
+	 *        time to live in seconds
+	 * @return self
+	 */
+	public ResultCacheConfiguration setExpireAfterWriteSeconds(int expireAfterWriteSeconds) {
+		this.expireAfterWriteSeconds = expireAfterWriteSeconds;
+		return this;
+	}
+
+	/**
+	 * Maximum amount of dynamic product sets of arranged searches, whose
+	 * resolved IDs are cached. They expire after the same time as the cached
+	 * results. This cache works independent of the result cache, since
+	 * arranged searches are never result-cached. Per default it's set to 0,
+	 * which disables that cache.
+	 * 
+	 * @param maxProductSets
+	 *        max amount of cached product sets
+	 * @return self
+	 */
+	public ResultCacheConfiguration setMaxProductSets(int maxProductSets) {
+		this.maxProductSets = maxProductSets;
+		return this;
+	}
+}
@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
@@ -18,6 +19,7 @@ import lombok.NoArgsConstructor;
  */
 @Getter // write setters with java-doc!
 @NoArgsConstructor
+@EqualsAndHashCode
 public class ScoringConfiguration {
 
 	private ScoreMode	scoreMode	= ScoreMode.AVG;
@@ -69,6 +71,7 @@ public class ScoringConfiguration {
 	 */
 	@Getter // write setters with java-doc!
 	@NoArgsConstructor
+	@EqualsAndHashCode
 	public static class ScoringFunction {
 
 		private String field;
@@ -5,6 +5,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
@@ -15,6 +16,7 @@ import lombok.NonNull;
  */
 @Getter // write setters with java-doc!
 @NoArgsConstructor
+@EqualsAndHashCode
 public class SearchConfiguration {
 
 	private String indexName;
@@ -35,6 +37,8 @@ public class SearchConfiguration {
 
 	private String variantPickingStrategy = "pickIfBestScored";
 
+	private ResultCacheConfiguration resultCache = new ResultCacheConfiguration();
+
 	/**
 	 * Optional index-name that should be addressed by the tenant. If null, the
 	 * index name will be set to the tenant name.
@@ -198,4 +202,17 @@ public class SearchConfiguration {
 	public void setVariantPickingStrategy(String variantPickingStrategy) {
 		this.variantPickingStrategy = variantPickingStrategy;
 	}
+
+	/**
+	 * Configuration of the cache for complete search results. Disabled per
+	 * default.
+	 * 
+	 * @param resultCache
+	 *        result cache configuration
+	 * @return self
+	 */
+	public SearchConfiguration setResultCache(@NonNull ResultCacheConfiguration resultCache) {
+		this.resultCache = resultCache;
+		return this;
+	}
 }
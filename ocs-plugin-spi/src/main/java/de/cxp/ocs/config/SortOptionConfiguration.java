@@ -1,6 +1,7 @@
 package de.cxp.ocs.config;
 
 import de.cxp.ocs.model.result.SortOrder;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
@@ -10,6 +11,7 @@ import lombok.NoArgsConstructor;
  */
 @Getter // write setters with java-doc!
 @NoArgsConstructor
+@EqualsAndHashCode
 public class SortOptionConfiguration {
 
 	String field;
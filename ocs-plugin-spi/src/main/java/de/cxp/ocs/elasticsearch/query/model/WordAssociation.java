@@ -72,6 +72,26 @@ public class WordAssociation implements QueryStringTerm {
 		return queryString.append(")").toString();
 	}
 
+	/**
+	 * Copies the given word associations together with their related words,
+	 * so the copy can be modified without changing the originals.
+	 * 
+	 * @param wordAssociations
+	 *        word associations mapped by their original word
+	 * @return deep copy of the word associations
+	 */
+	public static Map<String, WordAssociation> deepCopy(Map<String, WordAssociation> wordAssociations) {
+		Map<String, WordAssociation> copy = new HashMap<>(wordAssociations.size());
+		for (WordAssociation association : wordAssociations.values()) {
+			Map<String, WeightedWord> relatedWords = new HashMap<>(association.getRelatedWords().size());
+			for (WeightedWord w : association.getRelatedWords().values()) {
+				relatedWords.put(w.getWord(), new WeightedWord(w.getWord(), w.getWeight(), w.getTermFrequency(), w.isFuzzy(), w.getOccur()));
+			}
+			copy.put(association.getOriginalWord(), new WordAssociation(association.getOriginalWord(), association.getOccur(), relatedWords));
+		}
+		return copy;
+	}
+
 	@Override
 	public String getWord() {
 		return originalWord;
@@ -60,6 +60,13 @@ public class SearchQuery {
 	 */
 	public boolean withFacets = true;
 
+	/**
+	 * Optional comma separated list of result fields that should be returned
+	 * with the hits. If not set, all result fields are returned. Requested
+	 * fields that are no result fields are ignored.
+	 */
+	public String fields;
+
 	public String asUri() {
 		StringBuilder uri = new StringBuilder();
 		uri.append("q=").append(q);
@@ -67,6 +74,7 @@ public class SearchQuery {
 		uri.append("&limit=").append(limit);
 		if (offset > 0) uri.append("&offset=").append(offset);
 		uri.append("&withFacets=").append(withFacets);
+		if (fields != null) uri.append("&fields=").append(fields);
 		return uri.toString();
 	}
 
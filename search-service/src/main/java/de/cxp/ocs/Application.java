@@ -1,8 +1,10 @@
 package de.cxp.ocs;
 
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 
 import org.elasticsearch.client.RestClientBuilder;
+import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
@@ -26,6 +28,7 @@ import de.cxp.ocs.model.params.ProductSet;
 import de.cxp.ocs.model.params.StaticProductSet;
 import de.cxp.ocs.plugin.PluginManager;
 import de.cxp.ocs.spi.search.SearchConfigurationProvider;
+import de.cxp.ocs.util.ExecutorFactory;
 
 @SpringBootApplication
 @RefreshScope
@@ -46,6 +49,26 @@ public class Application {
 		return RestClientBuilderFactory.createRestClientBuilder(properties.getConnectionConfiguration());
 	}
 
+	@Bean
+	public ExecutorService asyncExecutor(ApplicationProperties properties) {
+		return ExecutorFactory.createExecutor(properties.getAsyncExecutor(), "ocs-search-async");
+	}
+
+	@Bean
+	public ExecutorService productSetExecutor(ApplicationProperties properties) {
+		return ExecutorFactory.createExecutor(properties.getProductSetExecutor(), "ocs-product-sets");
+	}
+
+	@Bean
+	public ApplicationRunner searchWarmUp(SearchController searchController, ApplicationProperties properties) {
+		// runners are done before the application is marked as ready
+		return args -> {
+			if (properties.getWarmUp().isEnabled()) {
+				searchController.warmUp(properties.getWarmUp());
+			}
+		};
+	}
+
 	@Bean
 	public SearchPlugins pluginManager(ApplicationProperties properties) {
 		PluginManager pluginManager = new PluginManager(properties.getDisabledPlugins(), properties.getPreferedPlugins());
@@ -0,0 +1,311 @@
+package de.cxp.ocs;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import de.cxp.ocs.config.ResultCacheConfiguration;
+import de.cxp.ocs.model.index.Document;
+import de.cxp.ocs.model.index.Product;
+import de.cxp.ocs.model.result.Facet;
+import de.cxp.ocs.model.result.FacetEntry;
+import de.cxp.ocs.model.result.ResultHit;
+import de.cxp.ocs.model.result.SearchResult;
+import de.cxp.ocs.model.result.SearchResultSlice;
+import de.cxp.ocs.util.InternalSearchParams;
+import de.cxp.ocs.util.SearchQueryBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+
+/**
+ * Cache for complete search results of a tenant. The cached results are
+ * bound to the index they were fetched from, so the cache has to be
+ * invalidated as soon as the index behind the tenant's alias changes.
+ */
+class ResultCache {
+
+	@Getter
+	private final ResultCacheConfiguration config;
+
+	private final Cache<String, SearchResult> cache;
+
+	private final Counter	hitCounter;
+	private final Counter	missCounter;
+	private final Counter	evictionCounter;
+
+	private final AtomicLong memoryFootprint;
+
+	/**
+	 * @param config
+	 *        cache configuration
+	 * @param tenant
+	 *        tenant name used to tag the metrics
+	 * @param memoryFootprint
+	 *        gauge value that is updated with the estimated size of the cached
+	 *        results
+	 * @param registry
+	 *        meter registry
+	 */
+	ResultCache(ResultCacheConfiguration config, String tenant, AtomicLong memoryFootprint, MeterRegistry registry) {
+		this.config = config;
+		this.memoryFootprint = memoryFootprint;
+		hitCounter = getCounter("hit", tenant, registry);
+		missCounter = getCounter("miss", tenant, registry);
+		evictionCounter = getCounter("eviction", tenant, registry);
+
+		// every entry weighs at least its share of the max memory, so the
+		// max weight also limits the amount of entries
+		long maxWeight = config.getMaxMemoryMb() * 1024L * 1024L;
+		long minEntryWeight = maxWeight / config.getMaxEntries();
+		cache = CacheBuilder.newBuilder()
+				.maximumWeight(maxWeight)
+				.<String, SearchResult> weigher((key, result) -> (int) Math.min(Integer.MAX_VALUE, Math.max(minEntryWeight, estimateSize(key, result))))
+				.expireAfterWrite(config.getExpireAfterWriteSeconds(), TimeUnit.SECONDS)
+				.removalListener(notification -> {
+					memoryFootprint.addAndGet(-estimateSize(notification.getKey(), notification.getValue()));
+					if (RemovalCause.SIZE.equals(notification.getCause())) {
+						evictionCounter.increment();
+					}
+				})
+				.build();
+	}
+
+	private static Counter getCounter(String type, String tenant, MeterRegistry registry) {
+		return Counter.builder("resultCache")
+				.tag("tenant", tenant)
+				.tag("type", type)
+				.register(registry);
+	}
+
+	/**
+	 * Creates the key of the given parameters with the same canonicalization
+	 * as the result links. Custom parameters are appended, since they may be
+	 * used by rescorers.
+	 *
+	 * @param parameters
+	 *        internal search parameters
+	 * @return cache key
+	 */
+	static String createKey(InternalSearchParams parameters) {
+		StringBuilder key = new StringBuilder(SearchQueryBuilder.toLink(parameters).toString());
+		if (!parameters.withResultData) {
+			key.append("|withResultData=false");
+		}
+		if (parameters.includedFacets != null) {
+			key.append("|facets=").append(new TreeSet<>(parameters.includedFacets));
+		}
+		if (parameters.customParams != null && !parameters.customParams.isEmpty()) {
+			key.append('|').append(new TreeMap<>(parameters.customParams));
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Returns the cached result or loads it with the given loader. Concurrent
+	 * requests for the same key wait for the same load.
+	 *
+	 * @param key
+	 *        cache key
+	 * @param loader
+	 *        loads the result in case it's not cached
+	 * @return copy of the result
+	 * @throws Exception
+	 *         exception of the loader
+	 */
+	SearchResult get(String key, Callable<SearchResult> loader) throws Exception {
+		boolean[] loaded = new boolean[] { false };
+		try {
+			SearchResult result = cache.get(key, () -> {
+				loaded[0] = true;
+				SearchResult loadedResult = loader.call();
+				memoryFootprint.addAndGet(estimateSize(key, loadedResult));
+				return loadedResult;
+			});
+			(loaded[0] ? missCounter : hitCounter).increment();
+			return copy(result);
+		}
+		catch (ExecutionException | UncheckedExecutionException e) {
+			missCounter.increment();
+			if (e.getCause() instanceof Exception) throw (Exception) e.getCause();
+			throw e;
+		}
+	}
+
+	SearchResult getIfPresent(String key) {
+		SearchResult result = cache.getIfPresent(key);
+		if (result == null) {
+			missCounter.increment();
+			return null;
+		}
+		hitCounter.increment();
+		return copy(result);
+	}
+
+	/**
+	 * Caches the given result.
+	 *
+	 * @param key
+	 *        cache key
+	 * @param result
+	 *        fresh search result
+	 * @return copy of the result that can be modified by the caller
+	 */
+	SearchResult put(String key, SearchResult result) {
+		memoryFootprint.addAndGet(estimateSize(key, result));
+		cache.put(key, result);
+		return copy(result);
+	}
+
+	void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	/**
+	 * The cached result is shared, so each request gets its own copy of the
+	 * result, its slices, hits and documents, which can be modified by the
+	 * caller. Only the facet entries and the data values are shared, so
+	 * those must not be modified.
+	 */
+	static SearchResult copy(SearchResult result) {
+		List<SearchResultSlice> slices = null;
+		if (result.slices != null) {
+			slices = new ArrayList<>(result.slices.size());
+			for (SearchResultSlice slice : result.slices) {
+				slices.add(copy(slice));
+			}
+		}
+		return new SearchResult()
+				.setInputURI(result.inputURI)
+				.setSlices(slices)
+				.setSortOptions(result.sortOptions == null ? null : new ArrayList<>(result.sortOptions))
+				.setMeta(result.meta == null ? null : new LinkedHashMap<>(result.meta));
+	}
+
+	private static SearchResultSlice copy(SearchResultSlice slice) {
+		SearchResultSlice sliceCopy = new SearchResultSlice()
+				.setLabel(slice.label)
+				.setMatchCount(slice.matchCount)
+				.setNextOffset(slice.nextOffset)
+				.setNextLink(slice.nextLink)
+				.setResultLink(slice.resultLink);
+		if (slice.hits != null) {
+			sliceCopy.hits = new ArrayList<>(slice.hits.size());
+			for (ResultHit hit : slice.hits) {
+				sliceCopy.hits.add(new ResultHit()
+						.setIndex(hit.index)
+						.setDocument(copy(hit.document))
+						.setMatchedQueries(hit.matchedQueries == null ? null : hit.matchedQueries.clone()));
+			}
+		}
+		if (slice.facets != null) {
+			sliceCopy.facets = new ArrayList<>(slice.facets.size());
+			for (Facet facet : slice.facets) {
+				sliceCopy.facets.add(new Facet(facet.fieldName)
+						.setAbsoluteFacetCoverage(facet.absoluteFacetCoverage)
+						.setFiltered(facet.isFiltered)
+						.setEntries(facet.entries == null ? null : new ArrayList<>(facet.entries))
+						.setType(facet.type)
+						.setMeta(facet.meta == null ? null : new HashMap<>(facet.meta)));
+			}
+		}
+		return sliceCopy;
+	}
+
+	private static Document copy(Document document) {
+		if (document == null) return null;
+		Document documentCopy;
+		if (document instanceof Product) {
+			Product productCopy = new Product(document.id);
+			Document[] variants = ((Product) document).variants;
+			if (variants != null) {
+				productCopy.variants = new Document[variants.length];
+				for (int i = 0; i < variants.length; i++) {
+					productCopy.variants[i] = copy(variants[i]);
+				}
+			}
+			documentCopy = productCopy;
+		}
+		else {
+			documentCopy = new Document(document.id);
+		}
+		documentCopy.data = document.data == null ? null : new HashMap<>(document.data);
+		documentCopy.attributes = document.attributes == null ? null : new ArrayList<>(document.attributes);
+		documentCopy.categories = document.categories == null ? null : new ArrayList<>(document.categories);
+		return documentCopy;
+	}
+
+	/**
+	 * Rough estimation of the memory size of a search result in bytes. It's
+	 * not exact, but good enough to limit the cache size.
+	 */
+	static long estimateSize(String key, SearchResult result) {
+		long size = 128 + 2L * key.length();
+		if (result == null || result.slices == null) return size;
+		for (SearchResultSlice slice : result.slices) {
+			size += 128 + (slice.resultLink == null ? 0 : 2L * slice.resultLink.length());
+			if (slice.hits != null) {
+				for (ResultHit hit : slice.hits) {
+					size += 64 + estimateSize(hit.document);
+				}
+			}
+			if (slice.facets != null) {
+				for (Facet facet : slice.facets) {
+					size += 96;
+					if (facet.entries != null) {
+						for (FacetEntry entry : facet.entries) {
+							size += 64 + (entry.key == null ? 0 : 2L * entry.key.length())
+									+ (entry.link == null ? 0 : 2L * entry.link.length());
+						}
+					}
+				}
+			}
+		}
+		return size;
+	}
+
+	private static long estimateSize(Document document) {
+		if (document == null) return 0;
+		long size = 32 + (document.data == null ? 0 : estimateSize(document.data));
+		if (document instanceof Product && ((Product) document).variants != null) {
+			for (Document variant : ((Product) document).variants) {
+				size += estimateSize(variant);
+			}
+		}
+		return size;
+	}
+
+	private static long estimateSize(Map<String, Object> data) {
+		long size = 48;
+		for (Map.Entry<String, Object> entry : data.entrySet()) {
+			size += 32 + 2L * entry.getKey().length();
+			Object value = entry.getValue();
+			if (value instanceof String) {
+				size += 40 + 2L * ((String) value).length();
+			}
+			else if (value instanceof Object[]) {
+				size += 16 + 48L * ((Object[]) value).length;
+			}
+			else if (value instanceof java.util.Collection) {
+				size += 16 + 48L * ((java.util.Collection<?>) value).size();
+			}
+			else {
+				size += 24;
+			}
+		}
+		return size;
+	}
+}
@@ -4,6 +4,8 @@ import java.util.List;
 
 import de.cxp.ocs.config.FieldConfigIndex;
 import de.cxp.ocs.config.SearchConfiguration;
+import de.cxp.ocs.elasticsearch.prodset.ProductSetCache;
+import de.cxp.ocs.elasticsearch.query.builder.TermAnalysisCache;
 import de.cxp.ocs.spi.search.UserQueryPreprocessor;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -21,4 +23,16 @@ public class SearchContext {
 	
 	public final List<UserQueryPreprocessor> userQueryPreprocessors;
 
+	/**
+	 * Cache for the term analysis of the prediction query that is kept as long
+	 * as the tenant's index does not change. Null if disabled.
+	 */
+	public final TermAnalysisCache termAnalysisCache;
+
+	/**
+	 * Cache for the IDs of resolved dynamic product sets that is kept as long
+	 * as the tenant's index does not change. Null if disabled.
+	 */
+	public final ProductSetCache productSetCache;
+
 }
@@ -4,20 +4,34 @@ import static de.cxp.ocs.util.SearchParamsParser.extractInternalParams;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
 
+import org.apache.commons.lang3.StringUtils;
 import org.elasticsearch.ElasticsearchStatusException;
 import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.get.GetResponse;
 import org.elasticsearch.client.RequestOptions;
@@ -37,29 +51,46 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 import de.cxp.ocs.api.searcher.SearchService;
+import de.cxp.ocs.config.ApplicationProperties;
+import de.cxp.ocs.config.ExecutorConfiguration;
 import de.cxp.ocs.config.FieldConfigIndex;
 import de.cxp.ocs.config.FieldConfiguration;
+import de.cxp.ocs.config.ResultCacheConfiguration;
 import de.cxp.ocs.config.SearchConfiguration;
+import de.cxp.ocs.config.WarmUpConfiguration;
 import de.cxp.ocs.elasticsearch.ElasticSearchBuilder;
 import de.cxp.ocs.elasticsearch.FieldConfigFetcher;
+import de.cxp.ocs.elasticsearch.SearchRequestBatch;
 import de.cxp.ocs.elasticsearch.Searcher;
 import de.cxp.ocs.elasticsearch.mapper.ResultMapper;
 import de.cxp.ocs.elasticsearch.prodset.HeroProductHandler;
+import de.cxp.ocs.elasticsearch.prodset.ProductSetCache;
+import de.cxp.ocs.elasticsearch.query.analyzer.QuerqyRulesRegistry;
+import de.cxp.ocs.elasticsearch.query.builder.TermAnalysisCache;
 import de.cxp.ocs.model.index.Document;
 import de.cxp.ocs.model.params.ArrangedSearchQuery;
 import de.cxp.ocs.model.params.ProductSet;
 import de.cxp.ocs.model.params.SearchQuery;
 import de.cxp.ocs.model.result.SearchResult;
 import de.cxp.ocs.spi.search.UserQueryPreprocessor;
+import de.cxp.ocs.util.ExecutorFactory;
 import de.cxp.ocs.util.InternalSearchParams;
 import de.cxp.ocs.util.NotFoundException;
+import de.cxp.ocs.util.SearchParamsParser;
+import de.cxp.ocs.util.SearchQueryBuilder;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.EqualsAndHashCode;
 import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @RefreshScope
@@ -70,6 +101,8 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class SearchController implements SearchService {
 
+	private static final String INDEX_UUID_SETTING = "index.uuid";
+
 	@Autowired
 	@NonNull
 	private ElasticSearchBuilder esBuilder;
@@ -81,45 +114,267 @@ public class SearchController implements SearchService {
 	@Autowired
 	private MeterRegistry registry;
 
+	@Autowired
+	private ExecutorService asyncExecutor;
+
+	@Autowired
+	private ExecutorService productSetExecutor;
+
 	private final Map<String, SearchContext> searchContexts = new ConcurrentHashMap<>();
 
 	private final Map<String, String> actualIndexPerTenant = new ConcurrentHashMap<>();
 
-	private final Cache<String, Searcher> searchClientCache = CacheBuilder.newBuilder()
-			.expireAfterAccess(10, TimeUnit.MINUTES)
-			.build();
+	private final Map<String, ReentrantLock> tenantLocks = new ConcurrentHashMap<>();
+
+	private final Map<String, ResultCache> resultCaches = new ConcurrentHashMap<>();
+
+	private final Map<String, AtomicLong> resultCacheMemory = new ConcurrentHashMap<>();
+
+	private final Map<String, TermAnalysisCache> termAnalysisCaches = new ConcurrentHashMap<>();
+
+	private final Map<String, ProductSetCache> productSetCaches = new ConcurrentHashMap<>();
+
+	private final Map<String, TenantVersion> tenantVersions = new ConcurrentHashMap<>();
+
+	@Autowired
+	private ApplicationProperties properties;
+
+	/**
+	 * The searchers are built and replaced with the config flushes, so the
+	 * requests don't have to build them. They are only evicted if there are
+	 * more than the configured maximum, to limit the memory usage.
+	 */
+	private Cache<String, Searcher> searchClientCache;
 
 	private final Cache<String, Exception> brokenTenantsCache = CacheBuilder.newBuilder()
 			.expireAfterWrite(5, TimeUnit.MINUTES)
 			.maximumSize(64)
 			.build();
 
+	/**
+	 * Tenants of the latest config refresh, to detect the removed ones.
+	 */
+	private volatile Set<String> configuredTenants = Collections.emptySet();
+
+	/**
+	 * Builds the searcher cache, which is limited according to the
+	 * 'max-searchers' property.
+	 */
+	@PostConstruct
+	void initSearcherCache() {
+		CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder();
+		if (properties.getMaxSearchers() > 0) {
+			cacheBuilder.maximumSize(properties.getMaxSearchers());
+		}
+		searchClientCache = cacheBuilder
+				.removalListener(notification -> {
+					if (RemovalCause.SIZE.equals(notification.getCause())) {
+						log.info("evicted searcher of tenant {}, because there are more than {} searchers", notification.getKey(), properties.getMaxSearchers());
+					}
+				})
+				.build();
+	}
+
+	/**
+	 * Reloads the configuration of all configured tenants. To avoid loading
+	 * and rebuilding everything again and again, only those tenants are
+	 * flushed, whose search configuration or index changed since the last
+	 * refresh. Tenants that are not configured anymore are removed.
+	 */
 	@Scheduled(fixedDelayString = "${ocs.scheduler.refresh-config-delay-ms:60000}")
 	public void refreshAllConfigs() {
 		Set<String> configuredTenants = plugins.getConfigurationProvider().getConfiguredTenants();
 		log.info("SearchController {} configured tenants {}", searchClientCache.size() == 0 ? "initializing" : "reloading", configuredTenants);
-		configuredTenants.forEach(this::flushConfig);
+		int skippedTenants = 0;
+		for (String tenant : configuredTenants) {
+			if (!refreshConfig(tenant)) {
+				skippedTenants++;
+			}
+		}
+		for (String removedTenant : this.configuredTenants) {
+			if (!configuredTenants.contains(removedTenant)) {
+				log.info("removing tenant {}, since it's not configured anymore", removedTenant);
+				removeTenant(removedTenant);
+			}
+		}
+		this.configuredTenants = configuredTenants;
+		// rules of unchanged tenants are not loaded with a new searcher
+		QuerqyRulesRegistry.refreshAll();
+		registry.counter("configRefresh", "type", "skipped").increment(skippedTenants);
+		registry.counter("configRefresh", "type", "reloaded").increment(configuredTenants.size() - skippedTenants);
+		log.info("config refresh skipped {} of {} tenants without changes", skippedTenants, configuredTenants.size());
 	}
 
+	/**
+	 * Flushes the config of the tenant, if its search configuration or index
+	 * changed since the last refresh.
+	 *
+	 * @return true if the config was flushed, false if it was skipped
+	 */
+	private boolean refreshConfig(String tenant) {
+		return !HttpStatus.NOT_MODIFIED.equals(flushConfig(tenant, false));
+	}
+
+	/**
+	 * Loads the configuration and initializes the searchers of all configured
+	 * tenants in parallel, so the first requests don't have to do that.
+	 * Afterwards the configured warm-up queries are run per tenant. Blocks
+	 * until all tenants are done or the configured timeout is reached. The
+	 * duration is recorded with the 'warmUp' metric.
+	 *
+	 * @param warmUpConfig
+	 *        warm-up configuration
+	 */
+	public void warmUp(WarmUpConfiguration warmUpConfig) {
+		long start = System.nanoTime();
+		Set<String> configuredTenants = plugins.getConfigurationProvider().getConfiguredTenants();
+		log.info("warming up tenants {}", configuredTenants);
+		// dedicated threads, so the warm-up does not block the common pool
+		ExecutorService warmUpExecutor = ExecutorFactory.createExecutor(new ExecutorConfiguration(false, Math.max(1, warmUpConfig.getThreads())), "ocs-warm-up");
+		CompletableFuture<?>[] tenantWarmUps = configuredTenants.stream()
+				.map(tenant -> CompletableFuture.runAsync(
+						() -> warmUpTenant(tenant, warmUpConfig.getQueries().getOrDefault(tenant, Collections.emptyList())),
+						warmUpExecutor))
+				.toArray(CompletableFuture[]::new);
+		// remaining tenants are still warmed up after a timeout
+		warmUpExecutor.shutdown();
+		try {
+			CompletableFuture.allOf(tenantWarmUps).get(warmUpConfig.getTimeoutSeconds(), TimeUnit.SECONDS);
+		}
+		catch (TimeoutException e) {
+			log.warn("warm-up not done after {} seconds, continue without waiting for the remaining tenants", warmUpConfig.getTimeoutSeconds());
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException e) {
+			// not expected, since failures are handled per tenant
+			log.warn("warm-up failed", e);
+		}
+		long warmUpNanos = System.nanoTime() - start;
+		registry.timer("warmUp").record(warmUpNanos, TimeUnit.NANOSECONDS);
+		log.info("warm-up of {} tenants took {}ms", configuredTenants.size(), TimeUnit.NANOSECONDS.toMillis(warmUpNanos));
+	}
+
+	private void warmUpTenant(String tenant, List<String> queries) {
+		MDC.put("tenant", tenant);
+		try {
+			refreshConfig(tenant);
+			SearchContext searchContext = searchContexts.get(tenant);
+			if (searchContext == null) return;
+			Searcher searcher = searchClientCache.get(tenant, () -> initializeSearcher(searchContext));
+			for (String query : queries) {
+				SearchQuery searchQuery = new SearchQuery();
+				searchQuery.q = query;
+				searcher.find(extractInternalParams(searchQuery, Collections.emptyMap(), searchContext));
+			}
+		}
+		catch (Exception e) {
+			log.warn("warm-up failed for tenant {}", tenant, e);
+		}
+		finally {
+			MDC.remove("tenant");
+		}
+	}
+
+	/**
+	 * Fetches the current search configuration of the tenant together with
+	 * the UUIDs of the indexes behind the tenant's index name. This is cheap
+	 * compared to loading the complete search context, since that also
+	 * fetches the field configuration from the index.
+	 *
+	 * @return the tenant version or null if it could not be determined
+	 */
+	private TenantVersion getTenantVersion(String tenant) {
+		try {
+			SearchConfiguration searchConfig = plugins.getConfigurationProvider().getTenantSearchConfiguration(tenant);
+			GetSettingsResponse settingsResponse = esBuilder.getRestHLClient().indices().getSettings(
+					new GetSettingsRequest().indices(searchConfig.getIndexName()).names(INDEX_UUID_SETTING),
+					RequestOptions.DEFAULT);
+			Map<String, String> indexUuids = new TreeMap<>();
+			settingsResponse.getIndexToSettings().keysIt()
+					.forEachRemaining(index -> indexUuids.put(index, settingsResponse.getSetting(index, INDEX_UUID_SETTING)));
+			return new TenantVersion(searchConfig, indexUuids);
+		}
+		catch (Exception e) {
+			log.debug("could not determine version of tenant {}: {}", tenant, e.getMessage());
+			return null;
+		}
+	}
+
+	@RequiredArgsConstructor
+	@EqualsAndHashCode
+	private static class TenantVersion {
+
+		private final SearchConfiguration searchConfig;
+
+		private final Map<String, String> indexUuids;
+
+		boolean hasSameIndexes(TenantVersion other) {
+			return other != null && indexUuids.equals(other.indexUuids);
+		}
+	}
+
+	/**
+	 * Reloads the configuration of the tenant and rebuilds its searcher,
+	 * regardless if anything changed, so changes that are not part of the
+	 * tenant version, like field configurations, plugins or query rules, can
+	 * be applied on demand.
+	 */
 	@GetMapping("/flushConfig/{tenant}")
 	public ResponseEntity<HttpStatus> flushConfig(@PathVariable("tenant") String tenant) {
+		HttpStatus status = flushConfig(tenant, true);
+		return new ResponseEntity<>(status, status);
+	}
+
+	/**
+	 * Reloads the configuration of the tenant and rebuilds its searcher.
+	 * Unless forced, this is skipped if the search configuration and the
+	 * index did not change since the last flush.
+	 *
+	 * @return NOT_MODIFIED if the flush was skipped
+	 */
+	private HttpStatus flushConfig(String tenant, boolean force) {
 		HttpStatus status;
-		synchronized (tenant.intern()) {
+		// explicit lock instead of synchronizing on the interned tenant
+		// string, so waiting threads are not pinned to their carrier thread
+		// when running on virtual threads
+		ReentrantLock tenantLock = tenantLocks.computeIfAbsent(tenant, t -> new ReentrantLock());
+		tenantLock.lock();
+		try {
 			MDC.put("tenant", tenant);
+			// the version is checked under the same lock as the flush, so the
+			// warm-up and the scheduled refresh don't flush the same tenant
+			// twice
+			TenantVersion tenantVersion = getTenantVersion(tenant);
 			try {
 				brokenTenantsCache.invalidate(tenant);
-				SearchContext searchContext = loadContext(tenant);
-				SearchContext oldConfig = searchContexts.put(tenant, searchContext);
-				if (oldConfig == null) {
-					log.info("config successfuly loaded for tenant {}", tenant);
-					status = HttpStatus.CREATED;
-				} else if (oldConfig.equals(searchContexts.get(tenant))) {
-					log.info("config flush did not modify config for tenant {}", tenant);
+				if (!force && tenantVersion != null && searchContexts.containsKey(tenant) && tenantVersion.equals(tenantVersions.get(tenant))) {
+					// keep the searcher together with its caches
+					log.debug("config flush did not modify config for tenant {}", tenant);
 					status = HttpStatus.NOT_MODIFIED;
-				} else {
-					log.info("config successfuly reloaded for tenant {}", tenant);
-					status = HttpStatus.OK;
-					searchClientCache.put(tenant, initializeSearcher(searchContext));
+				}
+				else {
+					SearchContext searchContext = loadContext(tenant);
+					// build the searcher in advance and swap it together with
+					// the context, so no request has to wait for it
+					Searcher searcher = initializeSearcher(searchContext);
+					SearchContext oldConfig = searchContexts.put(tenant, searchContext);
+					searchClientCache.put(tenant, searcher);
+					// the caches are kept with the new context, but their
+					// entries are only valid for the same indexes
+					if (oldConfig != null && (tenantVersion == null || !tenantVersion.hasSameIndexes(tenantVersions.get(tenant)))) {
+						log.info("invalidating caches of tenant {}, because its index changed", tenant);
+						invalidateCaches(tenant);
+					}
+					if (oldConfig == null) {
+						log.info("config successfuly loaded for tenant {}", tenant);
+						status = HttpStatus.CREATED;
+					}
+					else {
+						log.info("config successfuly reloaded for tenant {}", tenant);
+						status = HttpStatus.OK;
+					}
 				}
 			}
 			catch (ElasticsearchStatusException esx) {
@@ -134,27 +389,78 @@ public class SearchController implements SearchService {
 					status = HttpStatus.NOT_FOUND;
 				}
 			}
+			catch (RuntimeException e) {
+				// don't stop the refresh of the other tenants
+				log.error("Error while flushing config for tenant {}", tenant, e);
+				status = HttpStatus.INTERNAL_SERVER_ERROR;
+			}
 
+			if (tenantVersion == null || HttpStatus.NOT_FOUND.equals(status) || HttpStatus.INTERNAL_SERVER_ERROR.equals(status)) {
+				// retry with the next refresh
+				tenantVersions.remove(tenant);
+			}
+			else {
+				tenantVersions.put(tenant, tenantVersion);
+			}
 			MDC.remove("tenant");
 		}
+		finally {
+			tenantLock.unlock();
+		}
 
-		return new ResponseEntity<>(status, status);
+		return status;
 	}
 
 	@GetMapping("/search/{tenant}")
 	@Override
 	public SearchResult search(@PathVariable("tenant") String tenant, SearchQuery searchQuery, @RequestParam Map<String, String> filters) throws Exception {
 		// TODO: add plugin that may inject hero products
-		return internalSearch(tenant, searchQuery, filters, null);
+		return internalSearch(tenant, searchQuery, filters, null, null);
+	}
+
+	/**
+	 * Fetches the full facets for the given facet names with the same query
+	 * and filter state as the according search request. Meant to be used
+	 * together with the 'withFacetValues=false' parameter, that only delivers
+	 * the names of the top facets, to load the values of a facet as soon as
+	 * it's opened.
+	 * 
+	 * @param tenant
+	 *        tenant name
+	 * @param searchQuery
+	 *        search query
+	 * @param facets
+	 *        comma separated names of the facet fields
+	 * @param filters
+	 *        filters
+	 * @return search result with the requested facets and the match count, but
+	 *         without hits
+	 * @throws Exception
+	 *         in case of an unexpected failure
+	 */
+	@GetMapping("/search/facets/{tenant}")
+	public SearchResult searchFacets(@PathVariable("tenant") String tenant, SearchQuery searchQuery, @RequestParam("facets") String facets,
+			@RequestParam Map<String, String> filters) throws Exception {
+		Map<String, String> actualFilters = new HashMap<>(filters);
+		actualFilters.remove(SearchParamsParser.FACETS_PARAM);
+		actualFilters.remove(SearchParamsParser.WITH_FACET_VALUES_PARAM);
+		searchQuery.setWithFacets(true);
+
+		Set<String> includedFacets = new HashSet<>();
+		for (String facetName : StringUtils.split(facets, SearchQueryBuilder.VALUE_DELIMITER)) {
+			includedFacets.add(facetName.trim());
+		}
+		return internalSearch(tenant, searchQuery, actualFilters, null, includedFacets);
 	}
 
 	@PostMapping("/search/arranged/{tenant}")
 	@Override
 	public SearchResult arrangedSearch(@PathVariable("tenant") String tenant, @RequestBody ArrangedSearchQuery searchQuery) throws Exception {
-		return internalSearch(tenant, searchQuery, searchQuery.filters, searchQuery.arrangedProductSets);
+		return internalSearch(tenant, searchQuery, searchQuery.filters, searchQuery.arrangedProductSets, null);
 	}
 
-	private SearchResult internalSearch(String tenant, SearchQuery searchQuery, Map<String, String> filters, ProductSet[] heroProducts) throws Exception {
+	private SearchResult internalSearch(String tenant, SearchQuery searchQuery, Map<String, String> filters, ProductSet[] heroProducts,
+			Set<String> includedFacets) throws Exception {
 		MDC.put("tenant", tenant);
 		try {
 			// deny access to tenants that were considered invalid before
@@ -166,15 +472,28 @@ public class SearchController implements SearchService {
 				SearchContext searchContext = searchContexts.computeIfAbsent(tenant, this::loadContext);
 
 				final InternalSearchParams parameters = extractInternalParams(searchQuery, filters, searchContext);
+				parameters.includedFacets = includedFacets;
 
 				final Searcher searcher = searchClientCache.get(tenant, () -> initializeSearcher(searchContext));
+				// results with timings are not cached, since they would be misleading
+				final ResultCache resultCache = heroProducts == null && !parameters.withTimings ? resultCaches.get(tenant) : null;
 				if (heroProducts != null) {
 					parameters.heroProductSets = HeroProductHandler.resolve(heroProducts, searcher, searchContext);
 				}
 
-				SearchResult result = searcher.find(parameters);
-
-				triggerFlushIfNecessary(tenant, result);
+				SearchResult result;
+				if (resultCache == null) {
+					result = searcher.find(parameters);
+					triggerFlushIfNecessary(tenant, result);
+				}
+				else {
+					// only fresh results are checked for an index change
+					result = resultCache.get(ResultCache.createKey(parameters), () -> {
+						SearchResult freshResult = searcher.find(parameters);
+						triggerFlushIfNecessary(tenant, freshResult);
+						return freshResult;
+					});
+				}
 
 				result.tookInMillis = System.currentTimeMillis() - start;
 				return result;
@@ -197,17 +516,255 @@ public class SearchController implements SearchService {
 		}
 	}
 
+	/**
+	 * Same as the standard search endpoint, but the request is processed
+	 * asynchronously, so no servlet thread is blocked while the requests to
+	 * Elasticsearch are running.
+	 * 
+	 * @param tenant
+	 *        tenant name
+	 * @param searchQuery
+	 *        search query
+	 * @param filters
+	 *        filters
+	 * @return deferred search result
+	 */
+	@GetMapping("/search/async/{tenant}")
+	public DeferredResult<SearchResult> searchAsync(@PathVariable("tenant") String tenant, SearchQuery searchQuery, @RequestParam Map<String, String> filters) {
+		return toDeferredResult(internalSearchAsync(tenant, searchQuery, filters, null));
+	}
+
+	/**
+	 * Same as the arranged search endpoint, but the request is processed
+	 * asynchronously.
+	 * 
+	 * @param tenant
+	 *        tenant name
+	 * @param searchQuery
+	 *        search query with the product sets to arrange
+	 * @return deferred search result
+	 */
+	@PostMapping("/search/arranged/async/{tenant}")
+	public DeferredResult<SearchResult> arrangedSearchAsync(@PathVariable("tenant") String tenant, @RequestBody ArrangedSearchQuery searchQuery) {
+		return toDeferredResult(internalSearchAsync(tenant, searchQuery, searchQuery.filters, searchQuery.arrangedProductSets));
+	}
+
+	/**
+	 * Runs several searches for the same tenant with a single call. The
+	 * requests of all searches to Elasticsearch are sent together as
+	 * multi-search requests. The results are returned in the same order as the
+	 * queries. If a single search fails, its result only contains the error
+	 * message as meta data 'error', so the other results are still delivered.
+	 * 
+	 * @param tenant
+	 *        tenant name
+	 * @param searchQueries
+	 *        search queries with their filters and optional product sets to
+	 *        arrange
+	 * @return deferred list of search results
+	 */
+	@PostMapping("/search/multi/{tenant}")
+	public DeferredResult<List<SearchResult>> multiSearch(@PathVariable("tenant") String tenant, @RequestBody List<ArrangedSearchQuery> searchQueries) {
+		CompletableFuture<List<SearchResult>> searchResults;
+		MDC.put("tenant", tenant);
+		try {
+			checkTenant(tenant);
+			long start = System.currentTimeMillis();
+			searchResults = getSearchContextAsync(tenant)
+					.thenCompose(searchContext -> getSearcherAsync(tenant, searchContext)
+							.thenCompose(searcher -> multiSearch(tenant, searchContext, searcher, searchQueries, start)));
+		}
+		catch (Exception e) {
+			searchResults = new CompletableFuture<>();
+			searchResults.completeExceptionally(e);
+		}
+		finally {
+			MDC.remove("tenant");
+		}
+		return toDeferredResult(handleSearchFailure(tenant, searchResults));
+	}
+
+	private CompletableFuture<List<SearchResult>> multiSearch(String tenant, SearchContext searchContext, Searcher searcher,
+			List<ArrangedSearchQuery> searchQueries, long start) {
+		SearchRequestBatch batch = searcher.createRequestBatch(searchQueries.size());
+		List<CompletableFuture<SearchResult>> searchResults = new ArrayList<>(searchQueries.size());
+		for (ArrangedSearchQuery searchQuery : searchQueries) {
+			searchResults.add(searchAsync(tenant, searchContext, searcher, searchQuery, searchQuery.filters, searchQuery.arrangedProductSets, batch, start)
+					.whenComplete((result, e) -> batch.searchDone())
+					.handle((result, e) -> {
+						if (e == null) return result;
+						Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+						log.warn("search {} of multi-search failed for tenant {}: {}", searchQuery.asUri(), tenant, cause.getMessage());
+						Map<String, Object> meta = new HashMap<>();
+						meta.put("error", cause.getMessage());
+						return new SearchResult().setSlices(new ArrayList<>(0)).setMeta(meta);
+					}));
+		}
+
+		return CompletableFuture.allOf(searchResults.toArray(new CompletableFuture[0]))
+				.thenApply(v -> searchResults.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+	}
+
+	private CompletableFuture<SearchResult> internalSearchAsync(String tenant, SearchQuery searchQuery, Map<String, String> filters, ProductSet[] heroProducts) {
+		MDC.put("tenant", tenant);
+		CompletableFuture<SearchResult> searchResult;
+		try {
+			// deny access to tenants that were considered invalid before
+			// this is done until the latestTenantsCache invalidates that
+			checkTenant(tenant);
+
+			long start = System.currentTimeMillis();
+			searchResult = getSearchContextAsync(tenant)
+					.thenCompose(searchContext -> getSearcherAsync(tenant, searchContext)
+							.thenCompose(searcher -> searchAsync(tenant, searchContext, searcher, searchQuery, filters, heroProducts, null, start)));
+		}
+		catch (Exception e) {
+			searchResult = new CompletableFuture<>();
+			searchResult.completeExceptionally(e);
+		}
+		finally {
+			MDC.remove("tenant");
+		}
+		return handleSearchFailure(tenant, searchResult);
+	}
+
+	private CompletableFuture<SearchResult> searchAsync(String tenant, SearchContext searchContext, Searcher searcher, SearchQuery searchQuery,
+			Map<String, String> filters, ProductSet[] heroProducts, SearchRequestBatch batch, long start) {
+		try {
+			final InternalSearchParams parameters = extractInternalParams(searchQuery, filters, searchContext);
+
+			final ResultCache resultCache = heroProducts == null && !parameters.withTimings ? resultCaches.get(tenant) : null;
+			final String cacheKey = resultCache == null ? null : ResultCache.createKey(parameters);
+			final SearchResult cachedResult = resultCache == null ? null : resultCache.getIfPresent(cacheKey);
+
+			if (cachedResult != null) {
+				cachedResult.tookInMillis = System.currentTimeMillis() - start;
+				return CompletableFuture.completedFuture(cachedResult);
+			}
+
+			CompletableFuture<InternalSearchParams> resolvedParameters;
+			if (heroProducts != null) {
+				resolvedParameters = HeroProductHandler.resolveAsync(heroProducts, searcher, searchContext)
+						.thenApply(heroProductSets -> parameters.setHeroProductSets(heroProductSets));
+			}
+			else {
+				resolvedParameters = CompletableFuture.completedFuture(parameters);
+			}
+
+			return resolvedParameters
+					.thenCompose(resolved -> batch == null ? searcher.findAsync(resolved) : searcher.findAsync(resolved, batch))
+					.thenApply(result -> {
+						triggerFlushIfNecessary(tenant, result);
+						if (resultCache != null) {
+							result = resultCache.put(cacheKey, result);
+						}
+						result.tookInMillis = System.currentTimeMillis() - start;
+						return result;
+					});
+		}
+		catch (RuntimeException e) {
+			CompletableFuture<SearchResult> failedResult = new CompletableFuture<>();
+			failedResult.completeExceptionally(e);
+			return failedResult;
+		}
+	}
+
+	/**
+	 * Unwraps the failure of the given future and handles unavailable
+	 * indexes the same way as the blocking endpoints.
+	 */
+	private <T> CompletableFuture<T> handleSearchFailure(String tenant, CompletableFuture<T> searchResult) {
+		CompletableFuture<T> handledSearchResult = new CompletableFuture<>();
+		searchResult.whenComplete((result, e) -> {
+			if (e == null) {
+				handledSearchResult.complete(result);
+				return;
+			}
+			Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+			if (cause instanceof ElasticsearchStatusException) {
+				try {
+					handleUnavailableIndex(tenant, (ElasticsearchStatusException) cause);
+				}
+				catch (NotFoundException notFound) {
+					cause = notFound;
+				}
+			}
+			handledSearchResult.completeExceptionally(cause);
+		});
+		return handledSearchResult;
+	}
+
+	/**
+	 * Loading the context of an uncached tenant requests Elasticsearch, so
+	 * it's done with the async executor instead of the calling thread.
+	 */
+	private CompletableFuture<SearchContext> getSearchContextAsync(String tenant) {
+		SearchContext searchContext = searchContexts.get(tenant);
+		if (searchContext != null) {
+			return CompletableFuture.completedFuture(searchContext);
+		}
+		return CompletableFuture.supplyAsync(() -> searchContexts.computeIfAbsent(tenant, this::loadContext), asyncExecutor);
+	}
+
+	/**
+	 * Same as {@link #getSearchContextAsync(String)}, the searcher of an
+	 * uncached tenant is initialized with the async executor.
+	 */
+	private CompletableFuture<Searcher> getSearcherAsync(String tenant, SearchContext searchContext) {
+		Searcher searcher = searchClientCache.getIfPresent(tenant);
+		if (searcher != null) {
+			return CompletableFuture.completedFuture(searcher);
+		}
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return searchClientCache.get(tenant, () -> initializeSearcher(searchContext));
+			}
+			catch (ExecutionException | UncheckedExecutionException e) {
+				throw new CompletionException(e.getCause());
+			}
+		}, asyncExecutor);
+	}
+
+	private static <T> DeferredResult<T> toDeferredResult(CompletableFuture<T> future) {
+		DeferredResult<T> deferredResult = new DeferredResult<>();
+		future.whenComplete((result, e) -> {
+			if (e == null) {
+				deferredResult.setResult(result);
+			}
+			else {
+				deferredResult.setErrorResult(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+			}
+		});
+		return deferredResult;
+	}
+
 	private void triggerFlushIfNecessary(String tenant, SearchResult result) {
 		if (result.getSlices().size() > 0 && result.getSlices().get(0).hits.size() > 0) {
 			String indexName = result.getSlices().get(0).hits.get(0).index;
 			String prevIndexName = actualIndexPerTenant.put(tenant, indexName);
 			if (prevIndexName != null && !indexName.equals(prevIndexName)) {
 				log.info("flushing config for tenant {} because actual index changed from {} to {}", prevIndexName, indexName);
-				CompletableFuture.runAsync(() -> flushConfig(tenant));
+				invalidateCaches(tenant);
+				CompletableFuture.runAsync(() -> refreshConfig(tenant), asyncExecutor);
 			}
 		}
 	}
 
+	private void invalidateCaches(String tenant) {
+		ResultCache resultCache = resultCaches.get(tenant);
+		if (resultCache != null) {
+			resultCache.invalidateAll();
+		}
+		TermAnalysisCache termAnalysisCache = termAnalysisCaches.get(tenant);
+		if (termAnalysisCache != null) {
+			termAnalysisCache.invalidateAll();
+		}
+		ProductSetCache productSetCache = productSetCaches.get(tenant);
+		if (productSetCache != null) {
+			productSetCache.invalidateAll();
+		}
+	}
+
 	private void checkTenant(String tenant) throws Exception {
 		Exception latestTenantEx = brokenTenantsCache.getIfPresent(tenant);
 		if (latestTenantEx != null) {
@@ -215,11 +772,31 @@ public class SearchController implements SearchService {
 		}
 	}
 
+	private SearchContext removeTenant(String tenant) {
+		ReentrantLock tenantLock = tenantLocks.computeIfAbsent(tenant, t -> new ReentrantLock());
+		tenantLock.lock();
+		try {
+			SearchContext removedContext = searchContexts.remove(tenant);
+			searchClientCache.invalidate(tenant);
+			tenantVersions.remove(tenant);
+			actualIndexPerTenant.remove(tenant);
+			ResultCache removedCache = resultCaches.remove(tenant);
+			if (removedCache != null) {
+				removedCache.invalidateAll();
+			}
+			termAnalysisCaches.remove(tenant);
+			productSetCaches.remove(tenant);
+			return removedContext;
+		}
+		finally {
+			tenantLock.unlock();
+		}
+	}
+
 	private void handleUnavailableIndex(String tenant, ElasticsearchStatusException esx) throws NotFoundException {
 		if (esx.getMessage().contains("type=index_not_found_exception")) {
 			// don't keep objects for invalid tenants
-			SearchContext removedContext = searchContexts.remove(tenant);
-			searchClientCache.invalidate(tenant);
+			SearchContext removedContext = removeTenant(tenant);
 
 			String indexName = removedContext != null ? removedContext.config.getIndexName() : tenant;
 			NotFoundException notFoundException = new NotFoundException("Index " + indexName);
@@ -279,7 +856,35 @@ public class SearchController implements SearchService {
 	}
 
 	private Searcher initializeSearcher(SearchContext searchContext) {
-		return new Searcher(esBuilder.getRestHLClient(), searchContext, registry, plugins);
+		return new Searcher(esBuilder.getRestHLClient(), searchContext, registry, plugins, asyncExecutor, productSetExecutor);
+	}
+
+	/**
+	 * Creates, replaces or removes the result cache of the tenant according
+	 * to its configuration. This is done with each context load, so the
+	 * requests only have to look it up. The cache is kept across config
+	 * reloads and is only recreated if its configuration changes.
+	 */
+	private void updateResultCache(String tenant, SearchConfiguration searchConfig) {
+		ResultCacheConfiguration cacheConfig = searchConfig.getResultCache();
+		if (cacheConfig.getMaxEntries() <= 0 || cacheConfig.getMaxMemoryMb() <= 0) {
+			ResultCache removedCache = resultCaches.remove(tenant);
+			if (removedCache != null) {
+				removedCache.invalidateAll();
+			}
+			return;
+		}
+		resultCaches.compute(tenant, (t, resultCache) -> {
+			if (resultCache != null && resultCache.getConfig().equals(cacheConfig)) {
+				return resultCache;
+			}
+			if (resultCache != null) {
+				resultCache.invalidateAll();
+			}
+			AtomicLong memoryFootprint = resultCacheMemory.computeIfAbsent(tenant,
+					k -> registry.gauge("resultCache.memory", Tags.of("tenant", tenant), new AtomicLong()));
+			return new ResultCache(cacheConfig, tenant, memoryFootprint, registry);
+		});
 	}
 
 	private SearchContext loadContext(String tenant) {
@@ -290,7 +895,52 @@ public class SearchController implements SearchService {
 				plugins.getUserQueryPreprocessors(),
 				searchConfig.getPluginConfiguration());
 		log.info("Using index {} for tenant {}", searchConfig.getIndexName(), tenant);
-		return new SearchContext(fieldConfigAccess, searchConfig, userQueryPreprocessors);
+		updateResultCache(tenant, searchConfig);
+		return new SearchContext(fieldConfigAccess, searchConfig, userQueryPreprocessors, getTermAnalysisCache(tenant, searchConfig),
+				getProductSetCache(tenant, searchConfig));
+	}
+
+	/**
+	 * The term analysis cache is kept across config reloads, since it's only
+	 * bound to the index. It's only recreated if its size or the addressed
+	 * index changes.
+	 */
+	private TermAnalysisCache getTermAnalysisCache(String tenant, SearchConfiguration searchConfig) {
+		int cacheSize = searchConfig.getQueryProcessing().getQueryPredictionCacheSize();
+		if (cacheSize <= 0) {
+			termAnalysisCaches.remove(tenant);
+			return null;
+		}
+		return termAnalysisCaches.compute(tenant, (t, termAnalysisCache) -> {
+			if (termAnalysisCache != null && termAnalysisCache.getMaxSize() == cacheSize
+					&& termAnalysisCache.getIndexName().equals(searchConfig.getIndexName())) {
+				return termAnalysisCache;
+			}
+			return new TermAnalysisCache(cacheSize, searchConfig.getIndexName(), registry);
+		});
+	}
+
+	/**
+	 * Same as the term analysis cache, the product set cache is kept across
+	 * config reloads and only recreated if its configuration or the addressed
+	 * index changes.
+	 */
+	private ProductSetCache getProductSetCache(String tenant, SearchConfiguration searchConfig) {
+		ResultCacheConfiguration cacheConfig = searchConfig.getResultCache();
+		int cacheSize = cacheConfig.getMaxProductSets();
+		int expireAfterWriteSeconds = cacheConfig.getExpireAfterWriteSeconds();
+		if (cacheSize <= 0) {
+			productSetCaches.remove(tenant);
+			return null;
+		}
+		return productSetCaches.compute(tenant, (t, productSetCache) -> {
+			if (productSetCache != null && productSetCache.getMaxSize() == cacheSize
+					&& productSetCache.getExpireAfterWriteSeconds() == expireAfterWriteSeconds
+					&& productSetCache.getIndexName().equals(searchConfig.getIndexName())) {
+				return productSetCache;
+			}
+			return new ProductSetCache(cacheSize, expireAfterWriteSeconds, tenant, searchConfig.getIndexName(), registry);
+		});
 	}
 
 	private FieldConfigIndex loadFieldConfiguration(String indexName) {
@@ -10,6 +10,7 @@ import org.springframework.boot.context.properties.NestedConfigurationProperty;
 import org.springframework.stereotype.Component;
 
 import lombok.Getter;
+import lombok.Setter;
 
 /**
  * Properties are configured in the application.yml file.
@@ -26,6 +27,28 @@ public class ApplicationProperties {
 	@NestedConfigurationProperty
 	private final ConnectionConfiguration connectionConfiguration = new ConnectionConfiguration();
 
+	@NestedConfigurationProperty
+	private final ExecutorConfiguration asyncExecutor = new ExecutorConfiguration();
+
+	/**
+	 * Executor that resolves the arranged product sets. Per default it's a
+	 * dedicated pool with 4 threads.
+	 */
+	@NestedConfigurationProperty
+	private final ExecutorConfiguration productSetExecutor = new ExecutorConfiguration(false, 4);
+
+	/**
+	 * Maximum amount of tenant searchers that are kept in memory. If there are
+	 * more tenants, the least recently used searchers are dropped and built
+	 * again with the next request of that tenant. Per default it's 0, which
+	 * keeps the searchers of all requested tenants.
+	 */
+	@Setter
+	private int maxSearchers = 0;
+
+	@NestedConfigurationProperty
+	private final WarmUpConfiguration warmUp = new WarmUpConfiguration();
+
 	@NestedConfigurationProperty
 	ApplicationSearchProperties defaultTenantConfig = new ApplicationSearchProperties();
 
@@ -45,6 +45,9 @@ public class ApplicationSearchProperties {
 	@NestedConfigurationProperty
 	private QueryProcessingConfiguration queryProcessing = new QueryProcessingConfiguration();
 
+	@NestedConfigurationProperty
+	private ResultCacheConfiguration resultCache = new ResultCacheConfiguration();
+
 	@NestedConfigurationProperty
 	private FacetConfiguration facetConfiguration = new FacetConfiguration();
 
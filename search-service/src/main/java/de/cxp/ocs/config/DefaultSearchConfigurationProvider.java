@@ -27,6 +27,7 @@ public class DefaultSearchConfigurationProvider implements SearchConfigurationPr
 		getFacetConfiguration(tenant).ifPresent(mergedConfig::setFacetConfiguration);
 		getScoringConfiguration(tenant).ifPresent(mergedConfig::setScoring);
 		getVariantPickingStrategy(tenant).ifPresent(mergedConfig::setVariantPickingStrategy);
+		getResultCacheConfiguration(tenant).ifPresent(mergedConfig::setResultCache);
 
 		mergedConfig.getQueryConfigs().addAll(getQueryConfiguration(tenant));
 		mergedConfig.getSortConfigs().addAll(getSortConfigs(tenant));
@@ -58,6 +59,11 @@ public class DefaultSearchConfigurationProvider implements SearchConfigurationPr
 				tenantConfig -> tenantConfig == null);
 	}
 
+	public Optional<ResultCacheConfiguration> getResultCacheConfiguration(String tenant) {
+		return getSubConfiguration(tenant, ApplicationSearchProperties::getResultCache,
+				tenantConfig -> tenantConfig == null);
+	}
+
 	public Optional<ScoringConfiguration> getScoringConfiguration(String tenant) {
 		return getSubConfiguration(tenant, ApplicationSearchProperties::getScoringConfiguration,
 				tenantConfig -> tenantConfig == null || tenantConfig.useDefaultScoringConfig);
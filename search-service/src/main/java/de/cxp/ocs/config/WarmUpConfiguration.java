@@ -0,0 +1,40 @@
+package de.cxp.ocs.config;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class WarmUpConfiguration {
+
+	/**
+	 * If set to true, the searchers of all configured tenants are initialized
+	 * at startup, before the service reports to be ready.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * Amount of threads that warm up the tenants in parallel. These threads
+	 * are only used during the warm-up.
+	 */
+	private int threads = 4;
+
+	/**
+	 * Maximum time in seconds the warm-up may delay the startup. Tenants that
+	 * are not initialized until then are initialized with their first request.
+	 */
+	private int timeoutSeconds = 120;
+
+	/**
+	 * Optional list of search queries per tenant that are run after the
+	 * searcher is initialized, to warm up the JVM and the Elasticsearch
+	 * caches.
+	 */
+	private Map<String, List<String>> queries = new HashMap<>();
+}
@@ -0,0 +1,153 @@
+package de.cxp.ocs.elasticsearch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+
+import de.cxp.ocs.elasticsearch.query.filter.InternalResultFilter;
+import de.cxp.ocs.elasticsearch.query.model.QueryStringTerm;
+import de.cxp.ocs.elasticsearch.query.model.WordAssociation;
+import de.cxp.ocs.util.InternalSearchParams;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Remembers which stage of the staged search delivered a result for a specific
+ * analyzed user query and filter combination. With that knowledge, the stages
+ * that are known to fail can be skipped for repeated searches.
+ * <p>
+ * The plans are only valid for the index they were recorded with. The cache
+ * lives as long as the searcher, which is replaced as soon as the UUID of the
+ * index behind the tenant changes. Within the same index, plans expire after
+ * the configured time, since updated documents may change the matching stage.
+ * </p>
+ */
+class QueryPlanCache {
+
+	private final Cache<String, QueryPlan> cache;
+
+	private final Counter	hitCounter;
+	private final Counter	missCounter;
+	private final Counter	evictionCounter;
+
+	QueryPlanCache(int maxSize, int expireAfterWriteSeconds, String indexName, MeterRegistry registry) {
+		hitCounter = getCounter("hit", indexName, registry);
+		missCounter = getCounter("miss", indexName, registry);
+		evictionCounter = getCounter("eviction", indexName, registry);
+		CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().maximumSize(maxSize);
+		if (expireAfterWriteSeconds > 0) {
+			cacheBuilder.expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS);
+		}
+		cache = cacheBuilder
+				.<String, QueryPlan> removalListener(notification -> {
+					if (RemovalCause.SIZE.equals(notification.getCause())) {
+						evictionCounter.increment();
+					}
+				})
+				.build();
+	}
+
+	private static Counter getCounter(String type, String indexName, MeterRegistry registry) {
+		return Counter.builder("queryPlanCache")
+				.tag("indexName", indexName)
+				.tag("type", type)
+				.register(registry);
+	}
+
+	/**
+	 * Creates the key for a query plan out of the analyzed search words and
+	 * the filters of the request. Paging and sorting is not considered, since
+	 * it has no influence on the amount of matches.
+	 *
+	 * @param searchWords
+	 *        analyzed search words
+	 * @param parameters
+	 *        parameters with filters
+	 * @return cache key
+	 */
+	static String createKey(List<QueryStringTerm> searchWords, InternalSearchParams parameters) {
+		StringBuilder key = new StringBuilder();
+		for (QueryStringTerm searchWord : searchWords) {
+			key.append(searchWord.toQueryString()).append(' ');
+		}
+		appendFilters(key, parameters.filters);
+		appendFilters(key, parameters.querqyFilters);
+		return key.toString();
+	}
+
+	private static void appendFilters(StringBuilder key, List<InternalResultFilter> filters) {
+		if (filters == null || filters.isEmpty()) return;
+		List<String> filterStrings = new ArrayList<>(filters.size());
+		for (InternalResultFilter filter : filters) {
+			filterStrings.add(filter.getField().getName() + "=" + String.join(",", filter.getValues()));
+		}
+		filterStrings.sort(null);
+		for (String filterString : filterStrings) {
+			key.append('|').append(filterString);
+		}
+	}
+
+	Optional<QueryPlan> get(String key) {
+		QueryPlan plan = cache.getIfPresent(key);
+		if (plan == null) {
+			missCounter.increment();
+		}
+		else {
+			hitCounter.increment();
+		}
+		return Optional.ofNullable(plan);
+	}
+
+	void put(String key, QueryPlan plan) {
+		cache.put(key, plan);
+	}
+
+	void invalidate(String key) {
+		cache.invalidate(key);
+	}
+
+	/**
+	 * The stage that delivered a result and the spell corrections that were
+	 * necessary for it.
+	 */
+	@RequiredArgsConstructor
+	static class QueryPlan {
+
+		/**
+		 * Position of the successful query factory inside the list of matching
+		 * factories.
+		 */
+		@Getter
+		private final int stageIndex;
+
+		@Getter
+		private final String stageName;
+
+		/**
+		 * Corrected words or null if no spell correction was necessary.
+		 */
+		private final Map<String, WordAssociation> correctedWords;
+
+		boolean isWithSpellCorrection() {
+			return correctedWords != null && !correctedWords.isEmpty();
+		}
+
+		/**
+		 * Query factories may modify the terms they get, so every search gets
+		 * its own copy of the corrected words.
+		 *
+		 * @return copy of the corrected words
+		 */
+		Map<String, WordAssociation> getCorrectedWords() {
+			return WordAssociation.deepCopy(correctedWords);
+		}
+	}
+}
@@ -37,15 +37,39 @@ public class ScoringCreator {
 	private final List<ScoringFunction>	scoreFunctions;
 	private final Map<String, Field>	scoreFields;
 
+	// the scoring functions only depend on the configuration, so they are
+	// built once and reused for all queries
+	private final FilterFunctionBuilder[]	masterScoringFunctions;
+	private final FilterFunctionBuilder[]	variantScoringFunctions;
+	private final CombineFunction			boostMode;
+	private final ScoreMode					scoreMode;
+
 	public ScoringCreator(SearchContext context) {
 		scoreConf = context.config.getScoring();
 		// copy into array, so that we can remove invalid score definitions
 		scoreFunctions = new ArrayList<>(scoreConf.getScoreFunctions());
 		Map<String, Field> tempScoreFields = context.getFieldConfigIndex().getFieldsByUsage(FieldUsage.SCORE);
 		scoreFields = Collections.unmodifiableMap(tempScoreFields);
+
+		masterScoringFunctions = buildScoringFunctions(false);
+		variantScoringFunctions = buildScoringFunctions(true);
+		boostMode = CombineFunction.fromString(scoreConf.getBoostMode().name().toUpperCase());
+		scoreMode = ScoreMode.fromString(scoreConf.getScoreMode().name().toUpperCase());
 	}
 
+	/**
+	 * Returns the prepared scoring functions. The returned builders are shared
+	 * between all queries and must not be modified.
+	 * 
+	 * @param isForVariantLevel
+	 *        true to get the functions that apply to the variant level
+	 * @return scoring functions
+	 */
 	public FilterFunctionBuilder[] getScoringFunctions(boolean isForVariantLevel) {
+		return isForVariantLevel ? variantScoringFunctions : masterScoringFunctions;
+	}
+
+	private FilterFunctionBuilder[] buildScoringFunctions(boolean isForVariantLevel) {
 		List<FilterFunctionBuilder> filterFunctionBuilders = new ArrayList<>();
 		Iterator<ScoringFunction> scoreFunctionIterator = scoreFunctions.iterator();
 		while (scoreFunctionIterator.hasNext()) {
@@ -194,10 +218,10 @@ public class ScoringCreator {
 	}
 
 	public CombineFunction getBoostMode() {
-		return CombineFunction.fromString(scoreConf.getBoostMode().name().toUpperCase());
+		return boostMode;
 	}
 
 	public ScoreMode getScoreMode() {
-		return ScoreMode.fromString(scoreConf.getScoreMode().name().toUpperCase());
+		return scoreMode;
 	}
 }
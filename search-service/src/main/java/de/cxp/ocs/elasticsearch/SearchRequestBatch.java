@@ -0,0 +1,138 @@
+package de.cxp.ocs.elasticsearch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Collects the requests of several searches that run at the same time and
+ * sends them with a single multi-search request, as soon as each of those
+ * searches waits for a response. Searches that need further requests, e.g.
+ * for the next query stage, are batched again in the next round.
+ * <p>
+ * Each search has to call {@link #searchDone()} when it's completed,
+ * otherwise the other searches wait forever.
+ * </p>
+ */
+public class SearchRequestBatch {
+
+	private final RestHighLevelClient restClient;
+
+	private final Timer batchTimer;
+
+	private final Executor asyncExecutor;
+
+	private int runningSearches;
+
+	private List<Submission> submissions = new ArrayList<>();
+
+	@RequiredArgsConstructor
+	private static class Submission {
+
+		private final MultiSearchRequest request;
+
+		private final CompletableFuture<MultiSearchResponse> future;
+	}
+
+	SearchRequestBatch(RestHighLevelClient restClient, int searchCount, Timer batchTimer, Executor asyncExecutor) {
+		this.restClient = restClient;
+		this.runningSearches = searchCount;
+		this.batchTimer = batchTimer;
+		this.asyncExecutor = asyncExecutor;
+	}
+
+	/**
+	 * Marks one of the searches as done, so the batch does not wait for its
+	 * requests anymore.
+	 */
+	public void searchDone() {
+		List<Submission> completeBatch;
+		synchronized (this) {
+			runningSearches--;
+			completeBatch = takeCompleteBatch();
+		}
+		send(completeBatch);
+	}
+
+	CompletableFuture<SearchResponse> submit(SearchRequest request) {
+		return submit(new MultiSearchRequest().add(request)).thenApply(response -> {
+			MultiSearchResponse.Item item = response.getResponses()[0];
+			if (item.isFailure()) {
+				throw new CompletionException(item.getFailure());
+			}
+			return item.getResponse();
+		});
+	}
+
+	CompletableFuture<MultiSearchResponse> submit(MultiSearchRequest request) {
+		CompletableFuture<MultiSearchResponse> future = new CompletableFuture<>();
+		List<Submission> completeBatch;
+		synchronized (this) {
+			submissions.add(new Submission(request, future));
+			completeBatch = takeCompleteBatch();
+		}
+		send(completeBatch);
+		return future;
+	}
+
+	private List<Submission> takeCompleteBatch() {
+		if (submissions.isEmpty() || submissions.size() < runningSearches) return null;
+		List<Submission> completeBatch = submissions;
+		submissions = new ArrayList<>();
+		return completeBatch;
+	}
+
+	private void send(List<Submission> completeBatch) {
+		if (completeBatch == null) return;
+
+		MultiSearchRequest batchRequest = new MultiSearchRequest();
+		for (Submission submission : completeBatch) {
+			submission.request.requests().forEach(batchRequest::add);
+		}
+
+		long start = System.nanoTime();
+		// same as for the single requests: don't continue on the I/O threads
+		// of the client
+		try {
+			restClient.msearchAsync(batchRequest, RequestOptions.DEFAULT, ActionListener.wrap(
+					response -> asyncExecutor.execute(() -> {
+						batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+						distribute(completeBatch, response);
+					}),
+					e -> asyncExecutor.execute(() -> fail(completeBatch, e))));
+		}
+		catch (RuntimeException e) {
+			// otherwise the waiting searches would never complete
+			fail(completeBatch, e);
+		}
+	}
+
+	private static void fail(List<Submission> completeBatch, Exception e) {
+		completeBatch.forEach(submission -> submission.future.completeExceptionally(e));
+	}
+
+	private static void distribute(List<Submission> completeBatch, MultiSearchResponse response) {
+		MultiSearchResponse.Item[] items = response.getResponses();
+		int offset = 0;
+		for (Submission submission : completeBatch) {
+			int requestCount = submission.request.requests().size();
+			submission.future.complete(new MultiSearchResponse(Arrays.copyOfRange(items, offset, offset + requestCount), response.getTook().millis()));
+			offset += requestCount;
+		}
+	}
+}
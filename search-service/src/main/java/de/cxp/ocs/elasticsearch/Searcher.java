@@ -10,15 +10,25 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.StopWatch;
 import org.apache.lucene.search.join.ScoreMode;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchType;
@@ -42,6 +52,8 @@ import org.elasticsearch.search.sort.SortOrder;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
+import com.google.common.collect.Iterators;
+
 import de.cxp.ocs.SearchContext;
 import de.cxp.ocs.SearchPlugins;
 import de.cxp.ocs.config.FacetConfiguration.FacetConfig;
@@ -50,6 +62,7 @@ import de.cxp.ocs.config.FieldConfigIndex;
 import de.cxp.ocs.config.FieldConstants;
 import de.cxp.ocs.config.FieldUsage;
 import de.cxp.ocs.config.SearchConfiguration;
+import de.cxp.ocs.elasticsearch.QueryPlanCache.QueryPlan;
 import de.cxp.ocs.elasticsearch.facets.FacetConfigurationApplyer;
 import de.cxp.ocs.elasticsearch.mapper.ResultMapper;
 import de.cxp.ocs.elasticsearch.mapper.VariantPickingStrategy;
@@ -60,8 +73,8 @@ import de.cxp.ocs.elasticsearch.query.analyzer.WhitespaceAnalyzer;
 import de.cxp.ocs.elasticsearch.query.builder.ConditionalQueries;
 import de.cxp.ocs.elasticsearch.query.builder.ESQueryFactoryBuilder;
 import de.cxp.ocs.elasticsearch.query.builder.MatchAllQueryFactory;
+import de.cxp.ocs.elasticsearch.query.builder.PredictionQueryFactory;
 import de.cxp.ocs.elasticsearch.query.filter.FilterContext;
-import de.cxp.ocs.elasticsearch.query.filter.InternalResultFilter;
 import de.cxp.ocs.elasticsearch.query.model.QueryFilterTerm;
 import de.cxp.ocs.elasticsearch.query.model.QueryStringTerm;
 import de.cxp.ocs.elasticsearch.query.model.WordAssociation;
@@ -76,11 +89,14 @@ import de.cxp.ocs.util.ESQueryUtils;
 import de.cxp.ocs.util.InternalSearchParams;
 import de.cxp.ocs.util.SearchQueryBuilder;
 import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.Timer.Sample;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -88,6 +104,20 @@ public class Searcher {
 
 	private static final Marker QUERY_MARKER = MarkerFactory.getMarker("QUERY");
 
+	private static final FilterFunctionBuilder[] NO_SCORING_FUNCTIONS = new FilterFunctionBuilder[0];
+
+	private static final int SPELL_CORRECTION_DICTIONARY_SIZE = 100_000;
+
+	// static parts of the search request that are shared by all requests and
+	// must not be modified
+	private static final FetchSourceContext	RESULT_DATA_SOURCE				= new FetchSourceContext(true,
+			new String[] { FieldConstants.RESULT_DATA + ".*" }, null);
+	// sort data is necessary for ResultMapper::addSortFieldPrefix
+	private static final FetchSourceContext	RESULT_AND_SORT_DATA_SOURCE		= new FetchSourceContext(true,
+			new String[] { FieldConstants.RESULT_DATA + ".*", FieldConstants.SORT_DATA + ".*" }, null);
+	private static final FetchSourceContext	VARIANT_RESULT_DATA_SOURCE		= new FetchSourceContext(true,
+			new String[] { VARIANTS + "." + RESULT_DATA + ".*" }, null);
+
 	@NonNull
 	private final RestHighLevelClient restClient;
 
@@ -100,6 +130,22 @@ public class Searcher {
 	@NonNull
 	private final FieldConfigIndex fieldIndex;
 
+	/**
+	 * Executor for the async parts of the search and for the steps that
+	 * follow on responses of the async client.
+	 */
+	@Getter
+	@NonNull
+	private final Executor asyncExecutor;
+
+	/**
+	 * Executor that resolves the arranged product sets, so they don't compete
+	 * with the other async tasks.
+	 */
+	@Getter
+	@NonNull
+	private final Executor productSetExecutor;
+
 	private final List<UserQueryPreprocessor>	userQueryPreprocessors;
 	private final UserQueryAnalyzer				userQueryAnalyzer;
 
@@ -117,6 +163,12 @@ public class Searcher {
 
 	private SpellCorrector spellCorrector;
 
+	private final QueryPlanCache queryPlanCache;
+
+	private final int speculativeStageCount;
+
+	private final SpellCorrectionDictionary spellCorrectionDictionary;
+
 	private final Set<String>				preferredVariantAttributes;
 	private final VariantPickingStrategy	variantPickingStrategy;
 
@@ -126,10 +178,37 @@ public class Searcher {
 	private final Timer					correctedWordsTimer;
 	private final Timer					resultTimer;
 	private final Timer					searchRequestTimer;
+	private final Timer					speculativeSearchTimer;
+	private final Timer					facetsTimer;
+	private final Timer					multiSearchBatchTimer;
+	private final Counter				speculativeStagesUsed;
+	private final Counter				speculativeStagesWasted;
+	private final Counter				approximateFacets;
+	private final Counter				exactFacets;
+	private final Counter				unsampledFacets;
+	private final Counter				preQueryCorrected;
+	private final Counter				preQueryNotCorrected;
+	private final Counter				preQueryUnknownWords;
 	private final DistributionSummary	summary;
 
+	private final Map<String, Timer>				stageTimers				= new ConcurrentHashMap<>();
+	private final Map<String, Timer>				speculativeStageTimers	= new ConcurrentHashMap<>();
+	private final Map<String, DistributionSummary>	stageHitSummaries		= new ConcurrentHashMap<>();
+
 	public Searcher(RestHighLevelClient restClient, SearchContext searchContext, final MeterRegistry registry, final SearchPlugins plugins) {
+		this(restClient, searchContext, registry, plugins, ForkJoinPool.commonPool());
+	}
+
+	public Searcher(RestHighLevelClient restClient, SearchContext searchContext, final MeterRegistry registry, final SearchPlugins plugins,
+			final Executor asyncExecutor) {
+		this(restClient, searchContext, registry, plugins, asyncExecutor, asyncExecutor);
+	}
+
+	public Searcher(RestHighLevelClient restClient, SearchContext searchContext, final MeterRegistry registry, final SearchPlugins plugins,
+			final Executor asyncExecutor, final Executor productSetExecutor) {
 		this.restClient = restClient;
+		this.asyncExecutor = asyncExecutor;
+		this.productSetExecutor = productSetExecutor;
 		this.config = searchContext.config;
 		this.registry = registry;
 		this.fieldIndex = searchContext.getFieldConfigIndex();
@@ -140,6 +219,25 @@ public class Searcher {
 		inputWordsTimer = getTimer("inputWordsSearch", config.getIndexName());
 		correctedWordsTimer = getTimer("correctedWordsSearch", config.getIndexName());
 		searchRequestTimer = getTimer("executeSearchRequest", config.getIndexName());
+		speculativeSearchTimer = getTimer("speculativeStagedSearch", config.getIndexName());
+		facetsTimer = getTimer("buildFacets", config.getIndexName());
+		multiSearchBatchTimer = getTimer("multiSearchBatch", config.getIndexName());
+		speculativeStagesUsed = Counter.builder("speculativeStages").tag("indexName", config.getIndexName()).tag("type", "used")
+				.register(registry);
+		speculativeStagesWasted = Counter.builder("speculativeStages").tag("indexName", config.getIndexName()).tag("type", "wasted")
+				.register(registry);
+		approximateFacets = Counter.builder("facetSampling").tag("indexName", config.getIndexName()).tag("type", "approximate")
+				.register(registry);
+		exactFacets = Counter.builder("facetSampling").tag("indexName", config.getIndexName()).tag("type", "exact")
+				.register(registry);
+		unsampledFacets = Counter.builder("facetSampling").tag("indexName", config.getIndexName()).tag("type", "unsampled")
+				.register(registry);
+		preQueryCorrected = Counter.builder("preQuerySpellCorrection").tag("indexName", config.getIndexName()).tag("type", "corrected")
+				.register(registry);
+		preQueryNotCorrected = Counter.builder("preQuerySpellCorrection").tag("indexName", config.getIndexName()).tag("type", "notCorrected")
+				.register(registry);
+		preQueryUnknownWords = Counter.builder("preQuerySpellCorrection").tag("indexName", config.getIndexName()).tag("type", "unknownWords")
+				.register(registry);
 		summary = DistributionSummary.builder("stagedSearches").tag("indexName", config.getIndexName())
 				.register(registry);
 
@@ -156,6 +254,13 @@ public class Searcher {
 		rescorers = SearchPlugins.initialize(config.getRescorers(), plugins.getRescorerProviders(), config.getPluginConfiguration());
 
 		queryBuilder = new ESQueryFactoryBuilder(restClient, searchContext, plugins.getEsQueryFactories()).build();
+		int queryPlanCacheSize = config.getQueryProcessing().getQueryPlanCacheSize();
+		queryPlanCache = queryPlanCacheSize > 0 ? new QueryPlanCache(queryPlanCacheSize,
+				config.getQueryProcessing().getQueryPlanCacheExpireAfterWriteSeconds(), config.getIndexName(), registry) : null;
+		speculativeStageCount = config.getQueryProcessing().getSpeculativeStageCount();
+		spellCorrectionDictionary = config.getQueryProcessing().isPreQuerySpellCorrection() && spellCorrector != null
+				? new SpellCorrectionDictionary(SPELL_CORRECTION_DICTIONARY_SIZE)
+				: null;
 
 		preferredVariantAttributes = initVariantHandling();
 		variantPickingStrategy = VariantPickingStrategy.valueOf(config.getVariantPickingStrategy());
@@ -168,6 +273,30 @@ public class Searcher {
 				.register(registry);
 	}
 
+	private Timer getStageTimer(final String stageName) {
+		return stageTimers.computeIfAbsent(String.valueOf(stageName), name -> Timer.builder("searchStage")
+				.tag("indexName", config.getIndexName())
+				.tag("stage", name)
+				.publishPercentiles(0.5, 0.8, 0.9, 0.95)
+				.register(registry));
+	}
+
+	private Timer getSpeculativeStageTimer(final String stageName) {
+		return speculativeStageTimers.computeIfAbsent(String.valueOf(stageName), name -> Timer.builder("speculativeStage")
+				.tag("indexName", config.getIndexName())
+				.tag("stage", name)
+				.publishPercentiles(0.5, 0.8, 0.9, 0.95)
+				.register(registry));
+	}
+
+	private DistributionSummary getStageHitsSummary(final String stageName) {
+		return stageHitSummaries.computeIfAbsent(String.valueOf(stageName), name -> DistributionSummary.builder("searchStageHits")
+				.tag("indexName", config.getIndexName())
+				.tag("stage", name)
+				.publishPercentiles(0.5, 0.8, 0.9, 0.95)
+				.register(registry));
+	}
+
 	private SpellCorrector initSpellCorrection() {
 		Set<String> spellCorrectionFields = fieldIndex.getFieldsByUsage(FieldUsage.SEARCH).keySet();
 		return new SpellCorrector(spellCorrectionFields.toArray(new String[spellCorrectionFields.size()]));
@@ -182,7 +311,78 @@ public class Searcher {
 	}
 
 	public SearchResult find(InternalSearchParams parameters) throws IOException {
+		try {
+			// without async execution, all the requests are done at the calling
+			// thread, so the future is already completed at this point
+			return find(parameters, false).join();
+		}
+		catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) throw (IOException) cause;
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw e;
+		}
+	}
+
+	/**
+	 * Same as {@link #find(InternalSearchParams)} but all requests to
+	 * Elasticsearch are done without blocking the calling thread.
+	 *
+	 * @param parameters
+	 *        internal search parameters
+	 * @return future of the search result
+	 */
+	public CompletableFuture<SearchResult> findAsync(InternalSearchParams parameters) {
+		try {
+			return find(parameters, true);
+		}
+		catch (RuntimeException e) {
+			return failedFuture(e);
+		}
+	}
+
+	/**
+	 * Creates a batch for the given amount of searches, that are started with
+	 * {@link #findAsync(InternalSearchParams, SearchRequestBatch)}. Their
+	 * requests to Elasticsearch are sent together as multi-search requests.
+	 * 
+	 * @param searchCount
+	 *        amount of searches that use the batch
+	 * @return new batch
+	 */
+	public SearchRequestBatch createRequestBatch(int searchCount) {
+		return new SearchRequestBatch(restClient, searchCount, multiSearchBatchTimer, asyncExecutor);
+	}
+
+	/**
+	 * Same as {@link #findAsync(InternalSearchParams)} but the requests to
+	 * Elasticsearch are sent with the other searches of the given batch. The
+	 * caller has to notify the batch with {@link SearchRequestBatch#searchDone()}
+	 * as soon as the search is done.
+	 *
+	 * @param parameters
+	 *        internal search parameters
+	 * @param batch
+	 *        the batch that is shared with the other searches
+	 * @return future of the search result
+	 */
+	public CompletableFuture<SearchResult> findAsync(InternalSearchParams parameters, SearchRequestBatch batch) {
+		try {
+			return find(parameters, true, batch);
+		}
+		catch (RuntimeException e) {
+			return failedFuture(e);
+		}
+	}
+
+	private CompletableFuture<SearchResult> find(InternalSearchParams parameters, boolean async) {
+		return find(parameters, async, null);
+	}
+
+	private CompletableFuture<SearchResult> find(InternalSearchParams parameters, boolean async, SearchRequestBatch batch) {
 		Sample findTimerSample = Timer.start(Clock.SYSTEM);
+		long findStart = System.nanoTime();
 		Iterator<ESQueryFactory> stagedQueryBuilders;
 		List<QueryStringTerm> searchWords;
 
@@ -202,8 +402,11 @@ public class Searcher {
 			stagedQueryBuilders = Collections.<ESQueryFactory> singletonList(new MatchAllQueryFactory()).iterator();
 			searchWords = Collections.emptyList();
 		}
+		final long analysisNanos = System.nanoTime() - findStart;
 
-		SearchSourceBuilder searchSourceBuilder = SearchSourceBuilder.searchSource().size(parameters.limit)
+		// no hits are necessary if only single facets are requested
+		SearchSourceBuilder searchSourceBuilder = SearchSourceBuilder.searchSource()
+				.size(parameters.includedFacets == null ? parameters.limit : 0)
 				.from(parameters.offset);
 
 		List<SortBuilder<?>> variantSortings = sortingHandler.applySorting(parameters.sortings, searchSourceBuilder);
@@ -212,9 +415,8 @@ public class Searcher {
 			addRescorersFailsafe(parameters, searchSourceBuilder);
 		}
 
-		setFetchSources(searchSourceBuilder, variantSortings, parameters.withResultData);
+		setFetchSources(searchSourceBuilder, variantSortings, parameters);
 
-		List<InternalResultFilter> combinedFilters = new ArrayList<>();
 		FilterContext filterContext = filtersBuilder.buildFilterContext(parameters.filters, parameters.querqyFilters);
 
 		QueryBuilder postFilter = filterContext.getJoinedPostFilters();
@@ -223,110 +425,325 @@ public class Searcher {
 		}
 
 		if (parameters.isWithFacets()) {
-			List<AggregationBuilder> aggregators = facetApplier.buildAggregators(filterContext);
+			List<AggregationBuilder> aggregators = facetApplier.buildAggregators(filterContext, parameters);
 			if (aggregators != null && aggregators.size() > 0) {
 				aggregators.forEach(searchSourceBuilder::aggregation);
 			}
 		}
 
-		// TODO: add a cache to pick the correct query for known search terms
-
 		// staged search: try each query builder until we get a result
 		// + try and use spell correction with first query
-		int i = 0;
-		SearchResponse searchResponse = null;
-		Map<String, WordAssociation> correctedWords = null;
+		StagedSearch stagedSearch = new StagedSearch(parameters, searchSourceBuilder, filterContext, variantSortings, async);
+		stagedSearch.batch = batch;
+		stagedSearch.stagedQueryBuilders = stagedQueryBuilders;
+		stagedSearch.searchWords = searchWords;
+		if (parameters.withTimings) {
+			stagedSearch.stageTimings = new ArrayList<>();
+		}
 		Sample sqbSample = Timer.start(registry);
 
-		int minHitCount = 1;
 		if (parameters.heroProductSets != null) {
-			minHitCount = HeroProductHandler.getCorrectedMinHitCount(parameters);
+			stagedSearch.minHitCount = HeroProductHandler.getCorrectedMinHitCount(parameters);
+		}
+
+		// for known search terms, jump to the stage that delivered a result
+		// the last time
+		String queryPlanKey = null;
+		QueryPlan queryPlan = null;
+		if (queryPlanCache != null && !searchWords.isEmpty() && parameters.heroProductSets == null) {
+			queryPlanKey = QueryPlanCache.createKey(searchWords, parameters);
+			queryPlan = queryPlanCache.get(queryPlanKey).orElse(null);
+			if (queryPlan != null) {
+				while (stagedSearch.stageIndex < queryPlan.getStageIndex() && stagedQueryBuilders.hasNext()) {
+					stagedQueryBuilders.next();
+					stagedSearch.stageIndex++;
+				}
+				if (stagedQueryBuilders.hasNext()) {
+					if (queryPlan.isWithSpellCorrection()) {
+						stagedSearch.correctedWords = queryPlan.getCorrectedWords();
+						stagedSearch.searchWords = SpellCorrector.toListWithAllTerms(searchWords, stagedSearch.correctedWords);
+					}
+				}
+				else {
+					// should not happen, since the same search words result in
+					// the same stages, but better be safe
+					queryPlanCache.invalidate(queryPlanKey);
+					queryPlan = null;
+					stagedSearch.stageIndex = 0;
+					stagedSearch.stagedQueryBuilders = queryBuilder.getMatchingFactories(searchWords);
+				}
+			}
 		}
-		while ((searchResponse == null || searchResponse.getHits().getTotalHits().value < minHitCount)
-				&& stagedQueryBuilders.hasNext()) {
+
+		// correct known words before the first stage, so misspelled queries
+		// only need a single search. Otherwise request the spell corrections
+		// together with the first stage, regardless if the stage's query
+		// factory allows that, to learn about the unknown words.
+		if (spellCorrectionDictionary != null && queryPlan == null && !searchWords.isEmpty()) {
+			Map<String, WordAssociation> knownCorrections = spellCorrectionDictionary.getCorrections(searchWords);
+			if (knownCorrections != null) {
+				stagedSearch.correctedWords = knownCorrections;
+				if (knownCorrections.size() > 0) {
+					stagedSearch.searchWords = SpellCorrector.toListWithAllTerms(searchWords, knownCorrections);
+				}
+				(knownCorrections.size() > 0 ? preQueryCorrected : preQueryNotCorrected).increment();
+			}
+			else {
+				stagedSearch.preQuerySuggest = true;
+				preQueryUnknownWords.increment();
+			}
+		}
+
+		// send the first stages at once to avoid the round trips of the
+		// sequential execution
+		final boolean withSpeculativeStages = speculativeStageCount > 1 && queryPlan == null && !searchWords.isEmpty();
+
+		final String finalQueryPlanKey = queryPlanKey;
+		final QueryPlan finalQueryPlan = queryPlan;
+		final String finalPreprocessedQuery = preprocessedQuery;
+		return (withSpeculativeStages ? executeSpeculativeStages(stagedSearch)
+				: CompletableFuture.<List<SpeculativeStage>> completedFuture(null))
+				.thenCompose(speculativeStages -> {
+					stagedSearch.speculativeStages = speculativeStages;
+					return stagedSearch.run();
+				})
+				.thenApply(done -> {
+					long stagedSearchNanos = sqbSample.stop(sqbTimer);
+
+					SearchResponse searchResponse = stagedSearch.searchResponse;
+					if (stagedSearch.speculativeStages != null) {
+						long executedStages = stagedSearch.speculativeStages.stream().filter(stage -> stage.response != null).count();
+						speculativeStagesUsed.increment(stagedSearch.usedSpeculativeStages);
+						speculativeStagesWasted.increment(executedStages - stagedSearch.usedSpeculativeStages);
+					}
+
+					if (finalQueryPlanKey != null) {
+						if (searchResponse != null && searchResponse.getHits().getTotalHits().value >= stagedSearch.minHitCount) {
+							if (finalQueryPlan == null || finalQueryPlan.getStageIndex() != stagedSearch.successfulStageIndex) {
+								queryPlanCache.put(finalQueryPlanKey, new QueryPlan(stagedSearch.successfulStageIndex, stagedSearch.successfulStageName,
+										stagedSearch.correctedWords));
+							}
+						}
+						else if (finalQueryPlan != null) {
+							queryPlanCache.invalidate(finalQueryPlanKey);
+						}
+					}
+
+					Map<String, Object> timings = null;
+					if (parameters.withTimings) {
+						timings = new LinkedHashMap<>();
+						timings.put("analysis", toMillis(analysisNanos));
+						if (stagedSearch.spellCorrectionNanos > 0) {
+							timings.put("spellCorrection", toMillis(stagedSearch.spellCorrectionNanos));
+						}
+						if (stagedSearch.speculativeNanos > 0) {
+							timings.put("speculativeStages", toMillis(stagedSearch.speculativeNanos));
+						}
+						timings.put("stages", stagedSearch.stageTimings);
+						timings.put("stagedSearch", toMillis(stagedSearchNanos));
+					}
+					SearchResult searchResult = buildResult(parameters, filterContext, searchResponse, timings);
+
+					if (finalPreprocessedQuery != null) {
+						searchResult.meta.put("preprocessedQuery", finalPreprocessedQuery);
+						searchResult.meta.put("analyzedQuery", StringUtils.join(stagedSearch.searchWords));
+					}
+
+					summary.record(stagedSearch.i);
+					long findNanos = findTimerSample.stop(findTimer);
+
+					if (timings != null) {
+						timings.put("total", toMillis(findNanos));
+						searchResult.meta.put("timings", timings);
+					}
+
+					return searchResult;
+				});
+	}
+
+	/**
+	 * State of the staged search, which is executed one stage after the other
+	 * until a stage delivers enough hits. Each stage only starts after the
+	 * response of the previous one is available.
+	 */
+	@RequiredArgsConstructor
+	private class StagedSearch {
+
+		private final InternalSearchParams		parameters;
+		private final SearchSourceBuilder		searchSourceBuilder;
+		private final FilterContext				filterContext;
+		private final List<SortBuilder<?>>		variantSortings;
+		private final boolean					async;
+
+		private Iterator<ESQueryFactory>			stagedQueryBuilders;
+		private List<QueryStringTerm>				searchWords;
+		private Map<String, WordAssociation>		correctedWords;
+		private List<SpeculativeStage>				speculativeStages;
+		private List<QueryStringTerm>				speculativeSearchWords;
+		private SearchResponse						searchResponse;
+
+		private int		minHitCount				= 1;
+		private int		i						= 0;
+		private int		stageIndex				= 0;
+		private int		successfulStageIndex	= -1;
+		private String	successfulStageName;
+		private int		usedSpeculativeStages	= 0;
+		private boolean	preQuerySuggest			= false;
+
+		private long						spellCorrectionNanos	= 0;
+		private long						speculativeNanos		= 0;
+		private List<Map<String, Object>>	stageTimings;
+
+		private SearchRequestBatch batch;
+
+		CompletableFuture<Void> run() {
+			if ((searchResponse != null && searchResponse.getHits().getTotalHits().value >= minHitCount)
+					|| !stagedQueryBuilders.hasNext()) {
+				return CompletableFuture.completedFuture(null);
+			}
+			return runNextStage().thenCompose(proceed -> proceed ? run() : CompletableFuture.completedFuture(null));
+		}
+
+		/**
+		 * @return future that tells if the next stage should be tried
+		 */
+		private CompletableFuture<Boolean> runNextStage() {
 			StopWatch sw = new StopWatch();
 			sw.start();
 			Sample inputWordsSample = Timer.start(registry);
 			ESQueryFactory stagedQueryBuilder = stagedQueryBuilders.next();
+			successfulStageIndex = stageIndex++;
+			successfulStageName = stagedQueryBuilder.getName();
+
+			// speculative results are only valid as long as the search words
+			// were not changed by spell correction
+			SpeculativeStage speculativeStage = null;
+			if (speculativeStages != null && successfulStageIndex < speculativeStages.size()
+					&& searchWords == speculativeSearchWords) {
+				speculativeStage = speculativeStages.get(successfulStageIndex);
+			}
 
-			MasterVariantQuery searchQuery = stagedQueryBuilder.createQuery(searchWords);
+			MasterVariantQuery searchQuery = speculativeStage != null ? speculativeStage.query : stagedQueryBuilder.createQuery(searchWords);
 			if (log.isTraceEnabled()) {
 				log.trace("query nr {}: {}: match query = {}", i, stagedQueryBuilder.getName(),
 						searchQuery == null ? "NULL"
 								: searchQuery.getMasterLevelQuery().toString().replaceAll("[\n\\s]+", " "));
 			}
-			if (searchQuery == null)
-				continue;
+			if (searchQuery == null) {
+				recordStage(stagedQueryBuilder.getName(), sw, null, false);
+				return CompletableFuture.completedFuture(true);
+			}
 
-			if (parameters.heroProductSets != null) {
+			if (parameters.heroProductSets != null && speculativeStage == null) {
 				HeroProductHandler.extendQuery(searchQuery, parameters);
 			}
 
-			if (correctedWords == null && spellCorrector != null
-					&& stagedQueryBuilder.allowParallelSpellcheckExecution()
-					&& (!searchQuery.isWithSpellCorrection() || stagedQueryBuilders.hasNext())) {
-				searchSourceBuilder.suggest(spellCorrector.buildSpellCorrectionQuery(parameters.userQuery));
+			CompletableFuture<SearchResponse> stageResponse;
+			final boolean isSpeculative = speculativeStage != null && speculativeStage.response != null;
+			if (isSpeculative) {
+				stageResponse = CompletableFuture.completedFuture(speculativeStage.response);
+				usedSpeculativeStages++;
 			}
 			else {
-				searchSourceBuilder.suggest(null);
-			}
-
-			searchSourceBuilder.query(buildFinalQuery(searchQuery, filterContext, variantSortings));
+				if (correctedWords == null && spellCorrector != null
+						&& (preQuerySuggest || (stagedQueryBuilder.allowParallelSpellcheckExecution()
+								&& (!searchQuery.isWithSpellCorrection() || stagedQueryBuilders.hasNext())))) {
+					searchSourceBuilder.suggest(spellCorrector.buildSpellCorrectionQuery(parameters.userQuery));
+				}
+				else {
+					searchSourceBuilder.suggest(null);
+				}
 
-			if (log.isTraceEnabled()) {
-				log.trace(QUERY_MARKER, "{ \"user_query\": \"{}\", \"query\": {} }", parameters.userQuery, searchSourceBuilder.toString().replaceAll("[\n\\s]+", " "));
-			}
+				searchSourceBuilder.query(buildFinalQuery(searchQuery, filterContext, variantSortings, parameters.resultFields));
 
-			searchResponse = executeSearchRequest(searchSourceBuilder);
+				if (log.isTraceEnabled()) {
+					log.trace(QUERY_MARKER, "{ \"user_query\": \"{}\", \"query\": {} }", parameters.userQuery, searchSourceBuilder.toString().replaceAll("[\n\\s]+", " "));
+				}
 
-			if (log.isDebugEnabled()) {
-				log.debug("query nr {} ({}) for user-query '{}' done in {}ms with {} hits", i, stagedQueryBuilder.getName(),
-						parameters.userQuery, sw.getTime(), searchResponse.getHits().getTotalHits().value);
+				stageResponse = executeSearchRequest(searchSourceBuilder, async, batch);
 			}
-			inputWordsSample.stop(inputWordsTimer);
-
-			// if we don't have any hits, but there's a chance to get corrected
-			// words, then enrich the search words with the corrected words
-			if (searchResponse.getHits().getTotalHits().value < minHitCount && correctedWords == null && spellCorrector != null
-					&& searchResponse.getSuggest() != null) {
-				Sample correctedWordsSample = Timer.start(registry);
-				correctedWords = spellCorrector.extractRelatedWords(searchWords, searchResponse.getSuggest());
-				if (correctedWords.size() > 0) {
-					searchWords = SpellCorrector.toListWithAllTerms(searchWords, correctedWords);
+
+			return stageResponse.thenCompose(response -> {
+				searchResponse = response;
+				if (log.isDebugEnabled()) {
+					log.debug("query nr {} ({}) for user-query '{}' done in {}ms with {} hits", i, stagedQueryBuilder.getName(),
+							parameters.userQuery, sw.getTime(), searchResponse.getHits().getTotalHits().value);
 				}
+				inputWordsSample.stop(inputWordsTimer);
+
+				// if we don't have any hits, but there's a chance to get
+				// corrected words, then enrich the search words with the
+				// corrected words
+				Map<String, WordAssociation> suggestedCorrections = null;
+				if (correctedWords == null && spellCorrector != null && searchResponse.getSuggest() != null) {
+					suggestedCorrections = spellCorrector.extractRelatedWords(searchWords, searchResponse.getSuggest());
+					if (spellCorrectionDictionary != null) {
+						spellCorrectionDictionary.learn(searchResponse.getSuggest(), suggestedCorrections);
+					}
+				}
+				if (searchResponse.getHits().getTotalHits().value < minHitCount && suggestedCorrections != null) {
+					Sample correctedWordsSample = Timer.start(registry);
+					correctedWords = suggestedCorrections;
+					if (correctedWords.size() > 0) {
+						searchWords = SpellCorrector.toListWithAllTerms(searchWords, correctedWords);
+					}
 
-				// if the current query builder didn't take corrected words into
-				// account, then try again with corrected words
-				if (correctedWords.size() > 0 && !searchQuery.isWithSpellCorrection()) {
-					searchQuery = stagedQueryBuilder.createQuery(searchWords);
-					if (parameters.heroProductSets != null) {
-						HeroProductHandler.extendQuery(searchQuery, parameters);
+					// if the current query builder didn't take corrected words
+					// into account, then try again with corrected words
+					if (correctedWords.size() > 0 && !searchQuery.isWithSpellCorrection()) {
+						MasterVariantQuery correctedQuery = stagedQueryBuilder.createQuery(searchWords);
+						if (parameters.heroProductSets != null) {
+							HeroProductHandler.extendQuery(correctedQuery, parameters);
+						}
+						searchSourceBuilder.query(buildFinalQuery(correctedQuery, filterContext, variantSortings, parameters.resultFields));
+						return executeSearchRequest(searchSourceBuilder, async, batch).thenApply(correctedResponse -> {
+							searchResponse = correctedResponse;
+							spellCorrectionNanos += correctedWordsSample.stop(correctedWordsTimer);
+							recordStage(stagedQueryBuilder.getName(), sw, searchResponse, false);
+							return proceedAfter(correctedQuery);
+						});
 					}
-					searchSourceBuilder.query(buildFinalQuery(searchQuery, filterContext, variantSortings));
-					searchResponse = executeSearchRequest(searchSourceBuilder);
+					spellCorrectionNanos += correctedWordsSample.stop(correctedWordsTimer);
+				}
+				recordStage(stagedQueryBuilder.getName(), sw, searchResponse, isSpeculative);
+				return CompletableFuture.completedFuture(proceedAfter(searchQuery));
+			});
+		}
+
+		/**
+		 * Records the duration of a stage and the amount of hits it
+		 * produced. Stages that were answered by the speculative execution
+		 * are measured by the 'speculativeStage' timer instead.
+		 */
+		private void recordStage(String stageName, StopWatch sw, SearchResponse response, boolean speculative) {
+			long tookNanos = sw.getNanoTime();
+			if (!speculative) {
+				getStageTimer(stageName).record(tookNanos, TimeUnit.NANOSECONDS);
+				if (response != null) {
+					getStageHitsSummary(stageName).record(response.getHits().getTotalHits().value);
 				}
-				correctedWordsSample.stop(correctedWordsTimer);
 			}
+			if (stageTimings != null) {
+				Map<String, Object> stageTiming = new LinkedHashMap<>();
+				stageTiming.put("name", stageName);
+				stageTiming.put("tookInMillis", toMillis(tookNanos));
+				if (response != null) {
+					stageTiming.put("hits", response.getHits().getTotalHits().value);
+				}
+				if (speculative) {
+					stageTiming.put("speculative", true);
+				}
+				stageTimings.add(stageTiming);
+			}
+		}
 
+		private boolean proceedAfter(MasterVariantQuery searchQuery) {
 			if (searchResponse.getHits().getTotalHits().value < minHitCount && searchQuery.isAcceptNoResult()) {
-				break;
+				return false;
 			}
-
 			i++;
+			return true;
 		}
-		sqbSample.stop(sqbTimer);
-
-		SearchResult searchResult = buildResult(parameters, filterContext, searchResponse);
-
-		if (preprocessedQuery != null) {
-			searchResult.meta.put("preprocessedQuery", preprocessedQuery);
-			searchResult.meta.put("analyzedQuery", StringUtils.join(searchWords));
-		}
-
-		summary.record(i);
-		findTimerSample.stop(findTimer);
-
-		return searchResult;
 	}
 
 	/**
@@ -337,29 +754,30 @@ public class Searcher {
 	 * @return
 	 */
 	private List<QueryStringTerm> handleFiltersOnFields(InternalSearchParams parameters, List<QueryStringTerm> searchWords) {
-		// Pull all QueryFilterTerm items into a list of its own
-		List<QueryStringTerm> remainingSearchWords = new ArrayList<>();
-
-		Map<String, String> filtersAsMap = searchWords.stream()
-			.filter(searchWord -> searchWord instanceof QueryFilterTerm || !remainingSearchWords.add(searchWord))
-			// Generate the filters and add them
-			.map(term -> (QueryFilterTerm) term)
-			// TODO: support exclude filters
-			.collect(Collectors.toMap(QueryFilterTerm::getField, QueryFilterTerm::getWord, (word1, word2) -> word1));
+		// most queries don't contain any filter terms, so the analyzed list can
+		// be used as it is
+		Map<String, String> filtersAsMap = null;
+		List<QueryStringTerm> remainingSearchWords = searchWords;
+		for (int i = 0; i < searchWords.size(); i++) {
+			QueryStringTerm searchWord = searchWords.get(i);
+			if (searchWord instanceof QueryFilterTerm) {
+				if (filtersAsMap == null) {
+					filtersAsMap = new HashMap<>();
+					remainingSearchWords = new ArrayList<>(searchWords.subList(0, i));
+				}
+				// TODO: support exclude filters
+				filtersAsMap.putIfAbsent(((QueryFilterTerm) searchWord).getField(), searchWord.getWord());
+			}
+			else if (filtersAsMap != null) {
+				remainingSearchWords.add(searchWord);
+			}
+		}
 
-		parameters.querqyFilters = convertFiltersMapToInternalResultFilters(filtersAsMap);
+		parameters.querqyFilters = filtersAsMap == null ? Collections.emptyList() : parseFilters(filtersAsMap, fieldIndex);
 
 		return remainingSearchWords;
 	}
 
-	private List<InternalResultFilter> convertFiltersMapToInternalResultFilters(Map<String, String> additionalFilters) {
-		List<InternalResultFilter> convertedFilters = new ArrayList<>();
-		for (String key : additionalFilters.keySet()) {
-			convertedFilters = parseFilters(Collections.singletonMap(key, additionalFilters.get(key)), fieldIndex);
-		}
-		return convertedFilters;
-	}
-
 	private void addRescorersFailsafe(InternalSearchParams parameters, SearchSourceBuilder searchSourceBuilder) {
 		Iterator<RescorerProvider> rescorerProviders = rescorers.iterator();
 
@@ -418,6 +836,133 @@ public class Searcher {
 		}
 	}
 
+	/**
+	 * Builds the queries of the first stages and sends them with a single
+	 * multi-search request. The returned list contains one entry for each of
+	 * those stages in the same order. An entry has no query, if the stage
+	 * produced none and no response, if that part of the multi-search failed.
+	 * The speculation stops before a stage that would need a blocking request
+	 * to build its query.
+	 */
+	private CompletableFuture<List<SpeculativeStage>> executeSpeculativeStages(StagedSearch stagedSearch) {
+		// only take the factories that are needed, the following ones are
+		// still taken from the original iterator on demand
+		Iterator<ESQueryFactory> remainingStages = stagedSearch.stagedQueryBuilders;
+		List<ESQueryFactory> stages = new ArrayList<>(speculativeStageCount + 1);
+		while (stages.size() <= speculativeStageCount && remainingStages.hasNext()) {
+			stages.add(remainingStages.next());
+		}
+		stagedSearch.stagedQueryBuilders = Iterators.concat(stages.iterator(), remainingStages);
+
+		int stageCount = 0;
+		while (stageCount < Math.min(speculativeStageCount, stages.size())
+				&& !requiresAnalysisRequest(stages.get(stageCount), stagedSearch.searchWords)) {
+			stageCount++;
+		}
+		if (stageCount < 2) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		InternalSearchParams parameters = stagedSearch.parameters;
+		stagedSearch.speculativeSearchWords = stagedSearch.searchWords;
+		List<SpeculativeStage> speculativeStages = new ArrayList<>(stageCount);
+		MultiSearchRequest multiSearchRequest = new MultiSearchRequest();
+		for (int s = 0; s < stageCount; s++) {
+			ESQueryFactory stagedQueryBuilder = stages.get(s);
+			MasterVariantQuery searchQuery = stagedQueryBuilder.createQuery(stagedSearch.searchWords);
+			speculativeStages.add(new SpeculativeStage(stagedQueryBuilder.getName(), searchQuery));
+			if (searchQuery == null) continue;
+
+			if (parameters.heroProductSets != null) {
+				HeroProductHandler.extendQuery(searchQuery, parameters);
+			}
+
+			SearchSourceBuilder stageSourceBuilder = stagedSearch.searchSourceBuilder.shallowCopy();
+			if (stagedSearch.correctedWords == null && spellCorrector != null
+					&& ((stagedSearch.preQuerySuggest && s == 0) || (stagedQueryBuilder.allowParallelSpellcheckExecution()
+							&& (!searchQuery.isWithSpellCorrection() || s + 1 < stages.size())))) {
+				stageSourceBuilder.suggest(spellCorrector.buildSpellCorrectionQuery(parameters.userQuery));
+			}
+			stageSourceBuilder.query(buildFinalQuery(searchQuery, stagedSearch.filterContext, stagedSearch.variantSortings, parameters.resultFields));
+
+			multiSearchRequest.add(new SearchRequest(config.getIndexName())
+					.searchType(SearchType.QUERY_THEN_FETCH).source(stageSourceBuilder));
+		}
+		if (multiSearchRequest.requests().isEmpty()) {
+			return CompletableFuture.completedFuture(speculativeStages);
+		}
+
+		Sample sample = Timer.start(registry);
+		CompletableFuture<MultiSearchResponse> multiSearchFuture;
+		if (stagedSearch.batch != null) {
+			multiSearchFuture = stagedSearch.batch.submit(multiSearchRequest);
+		}
+		else if (stagedSearch.async) {
+			multiSearchFuture = new CompletableFuture<>();
+			restClient.msearchAsync(multiSearchRequest, RequestOptions.DEFAULT, completing(multiSearchFuture));
+		}
+		else {
+			try {
+				multiSearchFuture = CompletableFuture.completedFuture(restClient.msearch(multiSearchRequest, RequestOptions.DEFAULT));
+			}
+			catch (IOException | RuntimeException e) {
+				multiSearchFuture = failedFuture(e);
+			}
+		}
+
+		return multiSearchFuture.thenApply(multiSearchResponse -> {
+			stagedSearch.speculativeNanos = sample.stop(speculativeSearchTimer);
+			Iterator<MultiSearchResponse.Item> responses = multiSearchResponse.iterator();
+			for (SpeculativeStage stage : speculativeStages) {
+				if (stage.query == null) continue;
+				MultiSearchResponse.Item item = responses.next();
+				if (item.isFailure()) {
+					log.warn("speculative execution of stage {} failed, will run it again: {}", stage.name, item.getFailureMessage());
+				}
+				else {
+					stage.response = item.getResponse();
+					getSpeculativeStageTimer(stage.name).record(stage.response.getTook().millis(), TimeUnit.MILLISECONDS);
+				}
+			}
+			return speculativeStages;
+		});
+	}
+
+	/**
+	 * The prediction query factory analyzes the terms with a request to
+	 * Elasticsearch, unless that analysis is already cached.
+	 */
+	private static boolean requiresAnalysisRequest(ESQueryFactory stagedQueryBuilder, List<QueryStringTerm> searchWords) {
+		return stagedQueryBuilder instanceof PredictionQueryFactory
+				&& !((PredictionQueryFactory) stagedQueryBuilder).isTermAnalysisCached(searchWords);
+	}
+
+	@RequiredArgsConstructor
+	private static class SpeculativeStage {
+
+		private final String name;
+
+		private final MasterVariantQuery query;
+
+		private SearchResponse response;
+	}
+
+	private CompletableFuture<SearchResponse> executeSearchRequest(SearchSourceBuilder searchSourceBuilder, boolean async, SearchRequestBatch batch) {
+		if (batch != null) {
+			return batch.submit(new SearchRequest(config.getIndexName())
+					.searchType(SearchType.QUERY_THEN_FETCH).source(searchSourceBuilder));
+		}
+		if (async) {
+			return executeSearchRequestAsync(searchSourceBuilder);
+		}
+		try {
+			return CompletableFuture.completedFuture(executeSearchRequest(searchSourceBuilder));
+		}
+		catch (IOException | RuntimeException e) {
+			return failedFuture(e);
+		}
+	}
+
 	public SearchResponse executeSearchRequest(SearchSourceBuilder searchSourceBuilder) throws IOException {
 		Sample sample = Timer.start(registry);
 		SearchResponse searchResponse;
@@ -430,54 +975,127 @@ public class Searcher {
 		return searchResponse;
 	}
 
-	private SearchResult buildResult(InternalSearchParams parameters, FilterContext filterContext, SearchResponse searchResponse) {
+	public CompletableFuture<SearchResponse> executeSearchRequestAsync(SearchSourceBuilder searchSourceBuilder) {
+		Sample sample = Timer.start(registry);
+		SearchRequest searchRequest = new SearchRequest(config.getIndexName())
+				.searchType(SearchType.QUERY_THEN_FETCH).source(searchSourceBuilder);
+		CompletableFuture<SearchResponse> future = new CompletableFuture<>();
+		restClient.searchAsync(searchRequest, RequestOptions.DEFAULT, completing(future));
+		return future.whenComplete((response, e) -> sample.stop(searchRequestTimer));
+	}
+
+	/**
+	 * The listeners of the async client are called by the I/O threads of the
+	 * client. Since query factories may do blocking requests themselves, the
+	 * following steps must not run on those threads. Therefore the future is
+	 * completed with the async executor.
+	 */
+	private <T> ActionListener<T> completing(CompletableFuture<T> future) {
+		return ActionListener.wrap(
+				response -> asyncExecutor.execute(() -> future.complete(response)),
+				e -> asyncExecutor.execute(() -> future.completeExceptionally(e)));
+	}
+
+	private static <T> CompletableFuture<T> failedFuture(Throwable e) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		future.completeExceptionally(e);
+		return future;
+	}
+
+	private static long toMillis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+	/**
+	 * @param timings
+	 *        if not null, the durations of the result mapping and the facet
+	 *        creation are added
+	 */
+	private SearchResult buildResult(InternalSearchParams parameters, FilterContext filterContext, SearchResponse searchResponse,
+			Map<String, Object> timings) {
 		SearchQueryBuilder linkBuilder = new SearchQueryBuilder(parameters);
 		SearchResult searchResult = new SearchResult();
 		searchResult.inputURI = SearchQueryBuilder.toLink(parameters).toString();
 		searchResult.slices = new ArrayList<>(1);
 
-		resultTimer.record(() -> {
-			if (searchResponse != null) {
-				Set<String> heroIds;
-				if (parameters.heroProductSets != null) {
-					heroIds = HeroProductHandler.extractSlices(searchResponse, parameters, searchResult, variantPickingStrategy);
-				}
-				else {
-					heroIds = Collections.emptySet();
-				}
+		long facetsNanos = 0;
+		Sample resultSample = Timer.start(registry);
+		if (searchResponse != null) {
+			Set<String> heroIds;
+			if (parameters.heroProductSets != null) {
+				heroIds = HeroProductHandler.extractSlices(searchResponse, parameters, searchResult, variantPickingStrategy);
+			}
+			else {
+				heroIds = Collections.emptySet();
+			}
 
-				SearchResultSlice searchResultSlice = toSearchResult(searchResponse, parameters, heroIds);
-				if (parameters.isWithFacets()) {
-					searchResultSlice.facets = facetApplier.getFacets(searchResponse.getAggregations(), searchResultSlice.matchCount, filterContext, linkBuilder);
+			SearchResultSlice searchResultSlice = toSearchResult(searchResponse, parameters, heroIds);
+			if (parameters.isWithFacets()) {
+				Sample facetsSample = Timer.start(registry);
+				searchResultSlice.facets = facetApplier.getFacets(searchResponse.getAggregations(), searchResultSlice.matchCount, filterContext, linkBuilder, parameters);
+				if (facetApplier.isSamplingEnabled()) {
+					if (facetApplier.isApproximate(searchResponse.getAggregations(), searchResultSlice.matchCount)) {
+						approximateFacets.increment();
+					}
+					else if (facetApplier.isUnsampled(searchResponse.getAggregations(), searchResultSlice.matchCount)) {
+						unsampledFacets.increment();
+					}
+					else {
+						exactFacets.increment();
+					}
 				}
-				searchResultSlice.label = "main";
-				searchResult.slices.add(searchResultSlice);
+				facetsNanos = facetsSample.stop(facetsTimer);
 			}
-		});
+			searchResultSlice.label = "main";
+			searchResult.slices.add(searchResultSlice);
+		}
+		long resultNanos = resultSample.stop(resultTimer);
+		if (timings != null) {
+			timings.put("resultMapping", toMillis(resultNanos - facetsNanos));
+			timings.put("facets", toMillis(facetsNanos));
+		}
 		searchResult.sortOptions = sortingHandler.buildSortOptions(linkBuilder);
 		searchResult.meta = new HashMap<>();
 
 		return searchResult;
 	}
 
-	private void setFetchSources(SearchSourceBuilder searchSourceBuilder, List<SortBuilder<?>> variantSortings, boolean fetchSources) {
-		if (fetchSources) {
-			List<String> includeFields = new ArrayList<>();
-			includeFields.add(FieldConstants.RESULT_DATA + ".*");
-			if (variantSortings.size() > 0) {
-				// necessary for ResultMapper::addSortFieldPrefix
-				includeFields.add(FieldConstants.SORT_DATA + ".*");
-			}
-
-			searchSourceBuilder.fetchSource(includeFields.toArray(new String[includeFields.size()]), null);
+	private void setFetchSources(SearchSourceBuilder searchSourceBuilder, List<SortBuilder<?>> variantSortings, InternalSearchParams parameters) {
+		if (!parameters.withResultData) {
+			searchSourceBuilder.fetchSource(FetchSourceContext.DO_NOT_FETCH_SOURCE);
+		}
+		else if (parameters.resultFields != null) {
+			searchSourceBuilder.fetchSource(getResultFieldsSource(FieldConstants.RESULT_DATA, parameters.resultFields, !variantSortings.isEmpty()));
 		}
 		else {
-			searchSourceBuilder.fetchSource(FetchSourceContext.DO_NOT_FETCH_SOURCE);
+			searchSourceBuilder.fetchSource(variantSortings.isEmpty() ? RESULT_DATA_SOURCE : RESULT_AND_SORT_DATA_SOURCE);
+		}
+	}
+
+	/**
+	 * @param resultDataPath
+	 *        path of the result data, e.g. 'resultData' or
+	 *        'variants.resultData'
+	 * @param resultFields
+	 *        requested result fields
+	 * @param withSortData
+	 *        true if the sort data is needed as well
+	 * @return source context that only fetches the requested result fields
+	 */
+	private static FetchSourceContext getResultFieldsSource(String resultDataPath, Set<String> resultFields, boolean withSortData) {
+		String[] includes = new String[resultFields.size() + (withSortData ? 1 : 0)];
+		int i = 0;
+		for (String resultField : resultFields) {
+			includes[i++] = resultDataPath + "." + resultField;
 		}
+		if (withSortData) {
+			includes[i] = FieldConstants.SORT_DATA + ".*";
+		}
+		return new FetchSourceContext(true, includes, null);
 	}
 
 	private QueryBuilder buildFinalQuery(MasterVariantQuery searchQuery, FilterContext filterContext,
-			List<SortBuilder<?>> variantSortings) {
+			List<SortBuilder<?>> variantSortings, Set<String> resultFields) {
 		QueryBuilder masterLevelQuery = ESQueryUtils.mergeQueries(searchQuery.getMasterLevelQuery(),
 				filterContext.getJoinedBasicFilters().getMasterLevelQuery());
 
@@ -506,7 +1124,7 @@ public class Searcher {
 			variantsOnlyFiltered = false;
 		}
 
-		FilterFunctionBuilder[] variantScoringFunctions = variantSortings.isEmpty() ? scoringCreator.getScoringFunctions(true) : new FilterFunctionBuilder[0];
+		FilterFunctionBuilder[] variantScoringFunctions = variantSortings.isEmpty() ? scoringCreator.getScoringFunctions(true) : NO_SCORING_FUNCTIONS;
 		if (variantScoringFunctions.length > 0) {
 			if (variantsMatchQuery == null) variantsMatchQuery = QueryBuilders.matchAllQuery();
 			variantsMatchQuery = QueryBuilders.functionScoreQuery(variantsMatchQuery, variantScoringFunctions);
@@ -518,7 +1136,7 @@ public class Searcher {
 		if (variantFilterQuery != null) {
 			NestedQueryBuilder variantQuery = QueryBuilders.nestedQuery(FieldConstants.VARIANTS, variantFilterQuery, ScoreMode.None);
 			if (variantsOnlyFiltered) {
-				variantQuery.innerHit(getVariantInnerHits(variantSortings));
+				variantQuery.innerHit(getVariantInnerHits(variantSortings, resultFields));
 			}
 			masterLevelQuery = ESQueryUtils.mapToBoolQueryBuilder(masterLevelQuery).filter(variantQuery);
 			isRetrieveVariantInnerHits = true;
@@ -529,7 +1147,7 @@ public class Searcher {
 		// only exception: if the variants are only filtered
 		if (variantsMatchQuery != null && !variantsOnlyFiltered) {
 			NestedQueryBuilder variantQuery = QueryBuilders.nestedQuery(FieldConstants.VARIANTS, variantsMatchQuery, ScoreMode.Avg)
-					.innerHit(getVariantInnerHits(variantSortings));
+					.innerHit(getVariantInnerHits(variantSortings, resultFields));
 			masterLevelQuery = ESQueryUtils.mapToBoolQueryBuilder(masterLevelQuery).should(variantQuery);
 			isRetrieveVariantInnerHits = true;
 		}
@@ -541,10 +1159,15 @@ public class Searcher {
 		return masterLevelQuery;
 	}
 
-	private InnerHitBuilder getVariantInnerHits(List<SortBuilder<?>> variantSortings) {
+	/**
+	 * Inner hit and query builders are mutable, so they are created for every
+	 * request and only the fetch source contexts are shared.
+	 */
+	private InnerHitBuilder getVariantInnerHits(List<SortBuilder<?>> variantSortings, Set<String> resultFields) {
 		InnerHitBuilder variantInnerHits = new InnerHitBuilder()
 				.setSize(2)
-				.setFetchSourceContext(new FetchSourceContext(true, new String[] { VARIANTS + "." + RESULT_DATA + ".*" }, null));
+				.setFetchSourceContext(resultFields == null ? VARIANT_RESULT_DATA_SOURCE
+						: getResultFieldsSource(VARIANTS + "." + RESULT_DATA, resultFields, false));
 		if (!variantSortings.isEmpty()) {
 			variantInnerHits.setSorts(variantSortings);
 		}
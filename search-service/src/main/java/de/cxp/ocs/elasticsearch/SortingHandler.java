@@ -10,6 +10,7 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
 import org.elasticsearch.search.sort.SortBuilder;
 import org.elasticsearch.search.sort.SortBuilders;
 import org.elasticsearch.search.sort.SortOrder;
@@ -33,11 +34,39 @@ public class SortingHandler {
 	private final List<SortOptionConfiguration>			sortConfigs;
 	private final Map<String, SortOptionConfiguration>	sortConfigIndex;
 
+	// sort builders per sort string representation, prepared once for all
+	// sortable fields. Since builders are mutable, every request gets a copy.
+	private final Map<String, FieldSortBuilder>	masterSortBuilders		= new HashMap<>();
+	private final Map<String, FieldSortBuilder>	variantSortBuilders	= new HashMap<>();
+
 	public SortingHandler(@NonNull FieldConfigIndex fieldIndex, @NonNull List<SortOptionConfiguration> sortConfigs) {
 		Map<String, Field> tempSortFields = fieldIndex.getFieldsByUsage(FieldUsage.SORT);
 		sortFields = Collections.unmodifiableMap(tempSortFields);
 		this.sortConfigs = sortConfigs;
 		sortConfigIndex = sortConfigs.stream().collect(Collectors.toMap(s -> sortStringRepresentation(s.getField(), s.getOrder()), s -> s));
+		initSortBuilders();
+	}
+
+	private void initSortBuilders() {
+		for (Field sortField : sortFields.values()) {
+			for (de.cxp.ocs.model.result.SortOrder order : de.cxp.ocs.model.result.SortOrder.values()) {
+				String sortKey = sortStringRepresentation(sortField.getName(), order);
+				SortOptionConfiguration sortConf = sortConfigIndex.get(sortKey);
+				String missingParam = sortConf != null ? sortConf.getMissing() : null;
+				SortOrder esSortOrder = SortOrder.fromString(order.name());
+
+				masterSortBuilders.put(sortKey, SortBuilders.fieldSort(FieldConstants.SORT_DATA + "." + sortField.getName())
+						.order(esSortOrder)
+						.missing(missingParam));
+
+				if (sortField.isVariantLevel()) {
+					variantSortBuilders.put(sortKey, SortBuilders
+							.fieldSort(FieldConstants.VARIANTS + "." + FieldConstants.SORT_DATA + "." + sortField.getName())
+							.order(esSortOrder)
+							.missing(missingParam));
+				}
+			}
+		}
 	}
 
 	List<Sorting> buildSortOptions(SearchQueryBuilder linkBuilder) {
@@ -82,21 +111,14 @@ public class SortingHandler {
 	List<SortBuilder<?>> applySorting(List<Sorting> sortings, SearchSourceBuilder searchSourceBuilder) {
 		List<SortBuilder<?>> variantSortings = new ArrayList<>();
 		for (Sorting sorting : sortings) {
-			SortOptionConfiguration sortConf = sortConfigIndex.get(sortStringRepresentation(sorting.field, sorting.sortOrder));
-			Field sortField = sortFields.get(sorting.field);
-			if (sortField != null) {
-				String missingParam = sortConf != null ? sortConf.getMissing() : null;
+			String sortKey = sortStringRepresentation(sorting.field, sorting.sortOrder);
+			FieldSortBuilder masterSort = masterSortBuilders.get(sortKey);
+			if (masterSort != null) {
+				searchSourceBuilder.sort(new FieldSortBuilder(masterSort));
 
-				searchSourceBuilder.sort(SortBuilders.fieldSort(FieldConstants.SORT_DATA + "." + sorting.field)
-						.order(sorting.sortOrder == null ? SortOrder.ASC : SortOrder.fromString(sorting.sortOrder.name()))
-						.missing(missingParam));
-
-				if (sortField.isVariantLevel()) {
-					variantSortings.add(
-							SortBuilders
-									.fieldSort(FieldConstants.VARIANTS + "." + FieldConstants.SORT_DATA + "." + sorting.field)
-									.order(sorting.sortOrder == null ? SortOrder.ASC : SortOrder.fromString(sorting.sortOrder.name()))
-									.missing(missingParam));
+				FieldSortBuilder variantSort = variantSortBuilders.get(sortKey);
+				if (variantSort != null) {
+					variantSortings.add(new FieldSortBuilder(variantSort));
 				}
 			}
 			else {
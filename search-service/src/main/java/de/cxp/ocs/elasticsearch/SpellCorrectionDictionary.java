@@ -0,0 +1,79 @@
+package de.cxp.ocs.elasticsearch;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.elasticsearch.search.suggest.Suggest;
+import org.elasticsearch.search.suggest.Suggest.Suggestion;
+import org.elasticsearch.search.suggest.Suggest.Suggestion.Entry;
+import org.elasticsearch.search.suggest.Suggest.Suggestion.Entry.Option;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import de.cxp.ocs.elasticsearch.query.model.QueryStringTerm;
+import de.cxp.ocs.elasticsearch.query.model.WeightedWord;
+import de.cxp.ocs.elasticsearch.query.model.WordAssociation;
+
+/**
+ * Remembers the spell corrections of single words, that were extracted from
+ * the term suggestions of previous searches, including the words that need no
+ * correction. The term suggester only suggests corrections for words that are
+ * missing at the index, so that knowledge is valid until the index changes,
+ * which also replaces the searcher and with it this dictionary.
+ * <p>
+ * If all words of a query are known, it can be corrected before the first
+ * stage is executed, so a misspelled query only needs a single search
+ * request.
+ * </p>
+ */
+class SpellCorrectionDictionary {
+
+	private final Cache<String, Optional<WordAssociation>> knownWords;
+
+	SpellCorrectionDictionary(int maxSize) {
+		knownWords = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+	}
+
+	/**
+	 * Get the corrections of the given search words. Only plain words are
+	 * considered, since filters and raw query strings are not corrected.
+	 *
+	 * @param searchWords
+	 *        analyzed search words
+	 * @return a copy of the corrections of the misspelled words, which is
+	 *         empty if no word is misspelled, or null if at least one of the
+	 *         words is unknown
+	 */
+	Map<String, WordAssociation> getCorrections(List<QueryStringTerm> searchWords) {
+		Map<String, WordAssociation> corrections = new HashMap<>();
+		for (QueryStringTerm searchWord : searchWords) {
+			if (!(searchWord instanceof WeightedWord || searchWord instanceof WordAssociation)) continue;
+			Optional<WordAssociation> correction = knownWords.getIfPresent(searchWord.getWord());
+			if (correction == null) return null;
+			correction.ifPresent(c -> corrections.put(searchWord.getWord(), c));
+		}
+		return WordAssociation.deepCopy(corrections);
+	}
+
+	/**
+	 * Remembers all words of the given term suggestions together with their
+	 * corrections.
+	 *
+	 * @param suggest
+	 *        term suggestions of a search response
+	 * @param correctedWords
+	 *        the corrections that were extracted from those suggestions
+	 */
+	void learn(Suggest suggest, Map<String, WordAssociation> correctedWords) {
+		Map<String, WordAssociation> copiedCorrections = WordAssociation.deepCopy(correctedWords);
+		for (Suggestion<? extends Entry<? extends Option>> suggestion : suggest) {
+			for (Entry<? extends Option> wordSuggestion : suggestion.getEntries()) {
+				String word = wordSuggestion.getText().string();
+				knownWords.put(word, Optional.ofNullable(copiedCorrections.get(word)));
+			}
+		}
+	}
+}
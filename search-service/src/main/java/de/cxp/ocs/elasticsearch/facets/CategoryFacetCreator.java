@@ -41,6 +41,11 @@ public class CategoryFacetCreator extends NestedFacetCreator {
 		super(facetConfigs, defaultFacetConfigProvider);
 	}
 	
+	@Override
+	protected FacetType getFacetType() {
+		return FacetType.HIERARCHICAL;
+	}
+
 	@Override
 	protected String getNestedPath() {
 		return FieldConstants.PATH_FACET_DATA;
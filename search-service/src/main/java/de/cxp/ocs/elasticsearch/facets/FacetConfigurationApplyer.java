@@ -15,6 +15,7 @@ import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.apache.commons.lang3.StringUtils;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
@@ -22,6 +23,11 @@ import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.Aggregations;
 import org.elasticsearch.search.aggregations.bucket.filter.Filter;
 import org.elasticsearch.search.aggregations.bucket.filter.FilterAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.sampler.Sampler;
+import org.elasticsearch.search.aggregations.bucket.sampler.SamplerAggregationBuilder;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import de.cxp.ocs.SearchContext;
 import de.cxp.ocs.config.FacetConfiguration.FacetConfig;
@@ -31,6 +37,7 @@ import de.cxp.ocs.config.FieldType;
 import de.cxp.ocs.elasticsearch.query.filter.FilterContext;
 import de.cxp.ocs.elasticsearch.query.filter.InternalResultFilter;
 import de.cxp.ocs.model.result.Facet;
+import de.cxp.ocs.util.InternalSearchParams;
 import de.cxp.ocs.util.SearchQueryBuilder;
 import lombok.Data;
 import lombok.NonNull;
@@ -50,6 +57,16 @@ public class FacetConfigurationApplyer {
 	 */
 	static final String IS_MANDATORY_META_KEY = "isMandatory";
 
+	static final String SAMPLER_AGG_NAME = "_sampled";
+
+	/**
+	 * meta key to mark facets whose counts are based on a sample of the
+	 * matching documents
+	 */
+	public static final String APPROXIMATE_COUNTS_META_KEY = "approximateCounts";
+
+	private static final int MAX_KNOWN_MATCH_COUNTS = 10_000;
+
 	private final Map<String, FacetConfig> facetsBySourceField = new HashMap<>();
 
 	private final List<FacetCreator>						facetCreators			= new ArrayList<>();
@@ -57,6 +74,20 @@ public class FacetConfigurationApplyer {
 
 	private int maxFacets;
 
+	private final int samplingThreshold;
+
+	/**
+	 * Match counts of recently searched queries. The match count is only known
+	 * after a search, so the sampler is only used for queries that matched
+	 * more documents than the sampling threshold before. Estimating it in
+	 * advance would need an extra request, which costs more than the sampling
+	 * saves. The remembered count is the one of the stage that delivered the
+	 * result. Since all stages get the same aggregations and a sample that
+	 * contains all matches of a more specific stage is still exact, the stage
+	 * is not part of the key.
+	 */
+	private final Cache<String, Long> knownMatchCounts;
+
 	@Data
 	@RequiredArgsConstructor
 	private static class FacetCreatorClassifier {
@@ -88,6 +119,8 @@ public class FacetConfigurationApplyer {
 		String defaultFacetType = defaultFacetConfigProvider.apply("").getType();
 
 		maxFacets = context.config.getFacetConfiguration().getMaxFacets();
+		samplingThreshold = context.config.getFacetConfiguration().getSamplingThreshold();
+		knownMatchCounts = samplingThreshold > 0 ? CacheBuilder.newBuilder().maximumSize(MAX_KNOWN_MATCH_COUNTS).build() : null;
 
 		// I tried to do this whole method in a more generic way, but such code
 		// is less readable even if shorter
@@ -184,8 +217,6 @@ public class FacetConfigurationApplyer {
 		// range facets are only created for configured facets, so if there are
 		// none, don't use that creator at all
 		if (!rangeFacets.isEmpty()) {
-			// TODO: FacetCreators that run on the same nested field, should be
-			// grouped to use a single nested-aggregation for their aggregations
 			NestedFacetCreator rangeFacetCreator = new RangeFacetCreator(rangeFacets, FacetType.RANGE.name().equals(defaultFacetType) ? defaultFacetConfigProvider : null)
 					.setMaxFacets(maxFacets);
 			rangeFacetCreator.setGeneralExcludedFields(getNamesOfMatchingFields(ignoredFields, FieldType.NUMBER));
@@ -234,6 +265,12 @@ public class FacetConfigurationApplyer {
 
 		// consolidated variant facet creator
 		facetCreators.add(new VariantFacetCreator(variantFacetCreators));
+
+		// creators that run on the same nested field (e.g. interval and range
+		// facets) use a single nested-aggregation for their aggregations
+		List<FacetCreator> groupedFacetCreators = NestedPathFacetCreator.groupByNestedPath(facetCreators);
+		facetCreators.clear();
+		facetCreators.addAll(groupedFacetCreators);
 	}
 
 	private Function<String, FacetConfig> getDefaultFacetConfigProvider(SearchContext context) {
@@ -316,25 +353,76 @@ public class FacetConfigurationApplyer {
 	 * </p>
 	 * 
 	 * 
+	 * <p>
+	 * If only the facet names are requested, no values are aggregated and all
+	 * post filters are applied to the names aggregations. If the requested
+	 * facets are limited, only the aggregations of those facets are built.
+	 * </p>
+	 * 
+	 * <p>
+	 * If a sampling threshold is configured and the same query with the same
+	 * filters matched more documents than that threshold before, all those
+	 * aggregations are put into a sampler aggregation, that only considers the
+	 * best matching documents of each shard.
+	 * </p>
+	 * 
 	 * @param filterContext
 	 *        context that holds the filter queries
+	 * @param parameters
+	 *        search parameters that define which facets are requested
 	 * @return
 	 *         list of filtered and/or unfiltered aggregation builders depending
 	 *         on the existance of post filters
 	 */
-	public List<AggregationBuilder> buildAggregators(FilterContext filterContext) {
+	public List<AggregationBuilder> buildAggregators(FilterContext filterContext, InternalSearchParams parameters) {
+		List<AggregationBuilder> aggregators = buildFacetAggregators(filterContext, parameters);
+		if (samplingThreshold > 0 && !aggregators.isEmpty() && isAboveSamplingThreshold(parameters)) {
+			SamplerAggregationBuilder samplerAgg = AggregationBuilders.sampler(SAMPLER_AGG_NAME).shardSize(samplingThreshold);
+			aggregators.forEach(samplerAgg::subAggregation);
+			return Collections.singletonList(samplerAgg);
+		}
+		return aggregators;
+	}
+
+	private boolean isAboveSamplingThreshold(InternalSearchParams parameters) {
+		Long matchCount = knownMatchCounts.getIfPresent(getMatchCountKey(parameters));
+		return matchCount != null && matchCount > samplingThreshold;
+	}
+
+	private static String getMatchCountKey(InternalSearchParams parameters) {
+		StringBuilder key = new StringBuilder(String.valueOf(parameters.userQuery));
+		parameters.filters.stream()
+				.map(filter -> filter.getField().getName() + "=" + StringUtils.join(filter.getValues(), ','))
+				.sorted()
+				.forEach(filter -> key.append('&').append(filter));
+		return key.toString();
+	}
+
+	private List<AggregationBuilder> buildFacetAggregators(FilterContext filterContext, InternalSearchParams parameters) {
 		List<AggregationBuilder> aggregators = new ArrayList<>();
+		Set<String> includedFacets = parameters.includedFacets;
 
+		if (!parameters.withFacetValues) {
+			FilterAggregationBuilder fullFilteredAgg = filterContext.getPostFilterQueries().isEmpty() ? null
+					: AggregationBuilders.filter(FILTERED_AGG_NAME, filterContext.getJoinedPostFilters());
+			for (FacetCreator creator : facetCreators) {
+				if (fullFilteredAgg == null) aggregators.add(creator.buildFacetNamesAggregation());
+				else fullFilteredAgg.subAggregation(creator.buildFacetNamesAggregation());
+			}
+			if (fullFilteredAgg != null) aggregators.add(fullFilteredAgg);
+		}
 		// if there are no post filters, add aggregations without filters
 		// => at the getFacets method this has to be considered
-		if (filterContext.getPostFilterQueries().isEmpty()) {
+		else if (filterContext.getPostFilterQueries().isEmpty()) {
 			for (FacetCreator creator : facetCreators) {
-				aggregators.add(creator.buildAggregation());
+				aggregators.add(includedFacets == null ? creator.buildAggregation() : creator.buildIncludeFilteredAggregation(includedFacets));
 			}
 		}
 		else {
 			Map<String, QueryBuilder> postFilters = filterContext.getPostFilterQueries();
 			for (String postFilterName : postFilters.keySet()) {
+				if (includedFacets != null && !includedFacets.contains(postFilterName)) continue;
+
 				InternalResultFilter internalFilter = filterContext.getInternalFilters().get(postFilterName);
 				QueryBuilder exclusiveFilterQuery = getExclusivePostFilterQuery(postFilterName, internalFilter, postFilters);
 
@@ -349,10 +437,23 @@ public class FacetConfigurationApplyer {
 			// create a filter for all post filters and add all aggregations
 			// that are not specialized for all the post filters
 			FilterAggregationBuilder fullFilteredAgg = AggregationBuilders.filter(FILTERED_AGG_NAME, filterContext.getJoinedPostFilters());
-			for (FacetCreator creator : facetCreators) {
-				fullFilteredAgg.subAggregation(creator.buildExcludeFilteredAggregation(filterContext.getPostFilterQueries().keySet()));
+			if (includedFacets == null) {
+				for (FacetCreator creator : facetCreators) {
+					fullFilteredAgg.subAggregation(creator.buildExcludeFilteredAggregation(filterContext.getPostFilterQueries().keySet()));
+				}
+				aggregators.add(fullFilteredAgg);
+			}
+			else {
+				Set<String> remainingFacets = new HashSet<>(includedFacets);
+				remainingFacets.removeAll(postFilters.keySet());
+				// an empty include set would include all facets
+				if (!remainingFacets.isEmpty()) {
+					for (FacetCreator creator : facetCreators) {
+						fullFilteredAgg.subAggregation(creator.buildIncludeFilteredAggregation(remainingFacets));
+					}
+					aggregators.add(fullFilteredAgg);
+				}
 			}
-			aggregators.add(fullFilteredAgg);
 		}
 
 		return aggregators;
@@ -392,10 +493,22 @@ public class FacetConfigurationApplyer {
 	}
 
 	public List<Facet> getFacets(Aggregations aggregations, long matchCount,
-			FilterContext filterContext, SearchQueryBuilder linkBuilder) {
+			FilterContext filterContext, SearchQueryBuilder linkBuilder, InternalSearchParams parameters) {
 		List<Facet> facets;
 
-		if (filterContext.getPostFilterQueries().isEmpty()) {
+		boolean approximateCounts = isApproximate(aggregations, matchCount);
+		if (samplingThreshold > 0) {
+			knownMatchCounts.put(getMatchCountKey(parameters), matchCount);
+			Sampler samplerAgg = aggregations == null ? null : aggregations.get(SAMPLER_AGG_NAME);
+			if (samplerAgg != null) {
+				aggregations = samplerAgg.getAggregations();
+			}
+		}
+
+		if (!parameters.withFacetValues) {
+			facets = facetsFromNamesAggregations(aggregations, filterContext);
+		}
+		else if (filterContext.getPostFilterQueries().isEmpty()) {
 			facets = facetsFromUnfilteredAggregations(aggregations, filterContext, linkBuilder);
 		}
 		else {
@@ -422,6 +535,13 @@ public class FacetConfigurationApplyer {
 
 		});
 
+		if (approximateCounts) {
+			facets.forEach(f -> f.meta.put(APPROXIMATE_COUNTS_META_KEY, true));
+		}
+
+		// explicitly requested facets are not limited
+		if (parameters.includedFacets != null) return facets;
+
 		int actualMaxFacets = maxFacets + (int) facets.stream()
 				.filter(f -> (boolean) f.meta.getOrDefault(IS_MANDATORY_META_KEY, false))
 				.count();
@@ -429,6 +549,67 @@ public class FacetConfigurationApplyer {
 		return facets.size() > actualMaxFacets ? facets.subList(0, actualMaxFacets) : facets;
 	}
 
+	public boolean isSamplingEnabled() {
+		return samplingThreshold > 0;
+	}
+
+	/**
+	 * Checks if the query matched more documents than the sampling threshold,
+	 * but the facets were aggregated over all of them, because the match
+	 * count of that query was not known before.
+	 * 
+	 * @param aggregations
+	 *        the aggregations of the search response
+	 * @param matchCount
+	 *        the total amount of matching documents
+	 * @return true if sampling was skipped for an unknown query
+	 */
+	public boolean isUnsampled(Aggregations aggregations, long matchCount) {
+		if (samplingThreshold <= 0 || matchCount <= samplingThreshold) return false;
+		return aggregations == null || aggregations.get(SAMPLER_AGG_NAME) == null;
+	}
+
+	/**
+	 * Checks if the facet counts are based on a sample of the matching
+	 * documents, which is the case if the sampler aggregation was used and
+	 * considered less documents than the total match count.
+	 * 
+	 * @param aggregations
+	 *        the aggregations of the search response
+	 * @param matchCount
+	 *        the total amount of matching documents
+	 * @return true if the facet counts are approximate
+	 */
+	public boolean isApproximate(Aggregations aggregations, long matchCount) {
+		if (samplingThreshold <= 0 || aggregations == null) return false;
+		Sampler samplerAgg = aggregations.get(SAMPLER_AGG_NAME);
+		return samplerAgg != null && samplerAgg.getDocCount() < matchCount;
+	}
+
+	private List<Facet> facetsFromNamesAggregations(Aggregations aggregations, FilterContext filterContext) {
+		Aggregations namesAggregations = aggregations;
+		if (!filterContext.getPostFilterQueries().isEmpty()) {
+			Filter filteredAggregation = aggregations.get(FILTERED_AGG_NAME);
+			if (filteredAggregation == null) return new ArrayList<>();
+			namesAggregations = filteredAggregation.getAggregations();
+		}
+
+		Map<String, Facet> facets = new HashMap<>();
+		for (FacetCreator fc : facetCreators) {
+			for (Facet f : fc.createFacetNames(namesAggregations, filterContext)) {
+				// facets without values can't be merged, so just keep the one
+				// with the higher coverage
+				Facet previousFacet = facets.get(getLabel(f));
+				if (previousFacet != null && previousFacet.absoluteFacetCoverage >= f.absoluteFacetCoverage) {
+					continue;
+				}
+				markFacet(f, filterContext.getInternalFilters().keySet());
+				facets.put(getLabel(f), f);
+			}
+		}
+		return new ArrayList<>(facets.values());
+	}
+
 	private List<Facet> facetsFromFilteredAggregations(Aggregations aggregations, FilterContext filterContext, SearchQueryBuilder linkBuilder) {
 		Map<String, Facet> facets = new HashMap<>();
 
@@ -475,17 +656,21 @@ public class FacetConfigurationApplyer {
 						f = mergedFacet.get();
 					}
 				}
-				if (appliedFilters.contains(f.getFieldName())) {
-					f.setFiltered(true);
-				}
-
-				FacetConfig facetConfig = facetsBySourceField.get(f.getFieldName());
-				if (facetConfig != null && facetConfig.isExcludeFromFacetLimit()) {
-					f.meta.put(IS_MANDATORY_META_KEY, true);
-				}
+				markFacet(f, appliedFilters);
 				facets.put(getLabel(f), f);
 			}
 		}
 	}
 
+	private void markFacet(Facet f, Set<String> appliedFilters) {
+		if (appliedFilters.contains(f.getFieldName())) {
+			f.setFiltered(true);
+		}
+
+		FacetConfig facetConfig = facetsBySourceField.get(f.getFieldName());
+		if (facetConfig != null && facetConfig.isExcludeFromFacetLimit()) {
+			f.meta.put(IS_MANDATORY_META_KEY, true);
+		}
+	}
+
 }
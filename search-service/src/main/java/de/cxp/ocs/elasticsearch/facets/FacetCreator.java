@@ -41,6 +41,14 @@ public interface FacetCreator {
 	 */
 	AggregationBuilder buildExcludeFilteredAggregation(Set<String> excludeNames);
 
+	/**
+	 * Build aggregation that only fetches the names of the facets and the
+	 * amount of documents covered by them, but none of their values.
+	 * 
+	 * @return configured aggregation-builder
+	 */
+	AggregationBuilder buildFacetNamesAggregation();
+
 	/**
 	 * create facets from aggregation result.
 	 * 
@@ -54,6 +62,18 @@ public interface FacetCreator {
 	 */
 	Collection<Facet> createFacets(Aggregations aggResult, FilterContext filterContext, SearchQueryBuilder linkBuilder);
 
+	/**
+	 * create facets without entries from the result of the aggregation built
+	 * by {@link #buildFacetNamesAggregation()}.
+	 * 
+	 * @param aggResult
+	 *        ES aggregagtion result
+	 * @param filterContext
+	 *        the filter context
+	 * @return a list of facets without entries
+	 */
+	Collection<Facet> createFacetNames(Aggregations aggResult, FilterContext filterContext);
+
 	/**
 	 * Try to merge facets with same label. If not possible, return
 	 * Optional.empty.
@@ -40,6 +40,11 @@ public class IntervalFacetCreator extends NestedFacetCreator {
 		super(facetConfigs, defaultFacetConfigProvider);
 	}
 
+	@Override
+	protected FacetType getFacetType() {
+		return FacetType.INTERVAL;
+	}
+
 	@Override
 	protected String getNestedPath() {
 		return FieldConstants.NUMBER_FACET_DATA;
@@ -17,10 +17,12 @@ import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.Aggregations;
 import org.elasticsearch.search.aggregations.bucket.filter.ParsedFilter;
 import org.elasticsearch.search.aggregations.bucket.nested.Nested;
+import org.elasticsearch.search.aggregations.bucket.nested.ReverseNested;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms.Bucket;
 
 import de.cxp.ocs.config.FacetConfiguration.FacetConfig;
+import de.cxp.ocs.config.FacetType;
 import de.cxp.ocs.elasticsearch.query.filter.FilterContext;
 import de.cxp.ocs.elasticsearch.query.filter.InternalResultFilter;
 import de.cxp.ocs.model.result.Facet;
@@ -32,10 +34,10 @@ import lombok.experimental.Accessors;
 @Accessors(chain = true)
 public abstract class NestedFacetCreator implements FacetCreator {
 
-	static final String	FILTERED_AGG		= "_filtered";
 	static final String	FACET_NAMES_AGG		= "_names";
 	static final String	FACET_VALUES_AGG	= "_values";
 	static final String	FACET_IDS_AGG		= "_ids";
+	static final String	FACET_COVERAGE_AGG	= "_coverage";
 
 	@Setter
 	private int maxFacets = 2;
@@ -73,6 +75,8 @@ public abstract class NestedFacetCreator implements FacetCreator {
 
 	protected abstract boolean isMatchingFilterType(InternalResultFilter internalResultFilter);
 
+	protected abstract FacetType getFacetType();
+
 	protected abstract Optional<Facet> createFacet(Bucket facetNameBucket, FacetConfig facetConfig, InternalResultFilter facetFilter, SearchQueryBuilder linkBuilder);
 
 	@Override
@@ -90,24 +94,62 @@ public abstract class NestedFacetCreator implements FacetCreator {
 		return buildFilteredAggregation(Collections.emptySet(), excludeNames);
 	}
 
+	@Override
+	public AggregationBuilder buildFacetNamesAggregation() {
+		return AggregationBuilders.nested(uniqueAggregationName, getFullNestedPath())
+				.subAggregation(buildNestedAggregation(Collections.emptySet(), Collections.emptySet(), false));
+	}
+
 	private AggregationBuilder buildFilteredAggregation(Set<String> includedNames, Set<String> excludedNames) {
+		return AggregationBuilders.nested(uniqueAggregationName, getFullNestedPath())
+				.subAggregation(buildNestedAggregation(includedNames, excludedNames, true));
+	}
+
+	/**
+	 * @return the nested path including the prefix of the nested facet
+	 *         corrector, e.g. 'variants.numberFacetData'
+	 */
+	String getFullNestedPath() {
 		String nestedPathPrefix = "";
 		if (nestedFacetCorrector != null) nestedPathPrefix = nestedFacetCorrector.getNestedPathPrefix();
-		nestedPathPrefix += getNestedPath();
+		return nestedPathPrefix + getNestedPath();
+	}
 
-		AggregationBuilder valueAggBuilder = getNestedValueAggregation(nestedPathPrefix);
-		if (nestedFacetCorrector != null && correctedNestedDocumentCount()) nestedFacetCorrector.correctValueAggBuilder(valueAggBuilder);
+	/**
+	 * Builds the aggregation that has to run inside the nested aggregation of
+	 * the according nested path. It's named by the unique aggregation name, so
+	 * several creators can share the same nested aggregation.
+	 * 
+	 * @param includedNames
+	 *        names of data fields for which the aggregations should be built
+	 * @param excludedNames
+	 *        names of data fields that MUST NOT be part of this aggregation
+	 * @param withValues
+	 *        if false, only the facet names and their coverage is aggregated
+	 * @return filter aggregation builder
+	 */
+	AggregationBuilder buildNestedAggregation(Set<String> includedNames, Set<String> excludedNames, boolean withValues) {
+		String nestedPathPrefix = getFullNestedPath();
+
+		AggregationBuilder valueAggBuilder;
+		if (withValues) {
+			valueAggBuilder = getNestedValueAggregation(nestedPathPrefix);
+			if (nestedFacetCorrector != null && correctedNestedDocumentCount()) nestedFacetCorrector.correctValueAggBuilder(valueAggBuilder);
+		}
+		else {
+			// the name buckets count the nested documents, but the facet
+			// coverage is about the main documents
+			valueAggBuilder = AggregationBuilders.reverseNested(FACET_COVERAGE_AGG);
+		}
 
 		QueryBuilder facetNameFilter = getNameFilter(nestedPathPrefix + ".name", includedNames, excludedNames);
 
-		return AggregationBuilders.nested(uniqueAggregationName, nestedPathPrefix)
+		return AggregationBuilders.filter(uniqueAggregationName, facetNameFilter)
 				.subAggregation(
-						AggregationBuilders.filter(FILTERED_AGG, facetNameFilter)
-								.subAggregation(
-										AggregationBuilders.terms(FACET_NAMES_AGG)
-												.field(nestedPathPrefix + ".name")
-												.size(maxFacets)
-												.subAggregation(valueAggBuilder)));
+						AggregationBuilders.terms(FACET_NAMES_AGG)
+								.field(nestedPathPrefix + ".name")
+								.size(maxFacets)
+								.subAggregation(valueAggBuilder));
 	}
 
 	private QueryBuilder getNameFilter(String nestedFilterNamePath, Set<String> includedNames, Set<String> excludes) {
@@ -157,7 +199,31 @@ public abstract class NestedFacetCreator implements FacetCreator {
 
 	@Override
 	public Collection<Facet> createFacets(Aggregations aggResult, FilterContext filterContext, SearchQueryBuilder linkBuilder) {
-		ParsedFilter filtersAgg = ((Nested) aggResult.get(uniqueAggregationName)).getAggregations().get(FILTERED_AGG);
+		Nested nestedAgg = aggResult.get(uniqueAggregationName);
+		if (nestedAgg == null) return Collections.emptyList();
+		return createFacetsFromNestedAggregations(nestedAgg.getAggregations(), filterContext, linkBuilder);
+	}
+
+	@Override
+	public Collection<Facet> createFacetNames(Aggregations aggResult, FilterContext filterContext) {
+		Nested nestedAgg = aggResult.get(uniqueAggregationName);
+		if (nestedAgg == null) return Collections.emptyList();
+		return createFacetNamesFromNestedAggregations(nestedAgg.getAggregations(), filterContext);
+	}
+
+	/**
+	 * Create facets from the sub aggregations of the nested aggregation.
+	 * 
+	 * @param nestedAggResult
+	 *        aggregations inside the nested aggregation
+	 * @param filterContext
+	 *        the filter context
+	 * @param linkBuilder
+	 *        a link builder to create facet-entry-links
+	 * @return extracted facets
+	 */
+	Collection<Facet> createFacetsFromNestedAggregations(Aggregations nestedAggResult, FilterContext filterContext, SearchQueryBuilder linkBuilder) {
+		ParsedFilter filtersAgg = nestedAggResult.get(uniqueAggregationName);
 		if (filtersAgg == null) return Collections.emptyList();
 
 		Terms facetNamesAggregation = filtersAgg.getAggregations().get(FACET_NAMES_AGG);
@@ -166,13 +232,42 @@ public abstract class NestedFacetCreator implements FacetCreator {
 		return extractedFacets;
 	}
 
+	/**
+	 * Create facets without entries from the sub aggregations of the nested
+	 * aggregation that was built without values.
+	 * 
+	 * @param nestedAggResult
+	 *        aggregations inside the nested aggregation
+	 * @param filterContext
+	 *        the filter context
+	 * @return facets without entries
+	 */
+	Collection<Facet> createFacetNamesFromNestedAggregations(Aggregations nestedAggResult, FilterContext filterContext) {
+		ParsedFilter filtersAgg = nestedAggResult.get(uniqueAggregationName);
+		if (filtersAgg == null) return Collections.emptyList();
+
+		Terms facetNamesAggregation = filtersAgg.getAggregations().get(FACET_NAMES_AGG);
+		List<Facet> facets = new ArrayList<>();
+		for (Terms.Bucket facetNameBucket : facetNamesAggregation.getBuckets()) {
+			ReverseNested coverage = facetNameBucket.getAggregations().get(FACET_COVERAGE_AGG);
+			facets.add(FacetFactory.create(getFacetConfig(facetNameBucket.getKeyAsString()), getFacetType())
+					.setAbsoluteFacetCoverage(coverage.getDocCount()));
+		}
+		return facets;
+	}
+
+	private FacetConfig getFacetConfig(String facetName) {
+		FacetConfig facetConfig = facetConfigs.get(facetName);
+		if (facetConfig == null) facetConfig = defaultFacetConfigProvider.apply(facetName);
+		return facetConfig;
+	}
+
 	protected List<Facet> extractFacets(Terms facetNames, FilterContext filterContext, SearchQueryBuilder linkBuilder) {
 		List<Facet> facets = new ArrayList<>();
 		for (Terms.Bucket facetNameBucket : facetNames.getBuckets()) {
 			String facetName = facetNameBucket.getKeyAsString();
 
-			FacetConfig facetConfig = facetConfigs.get(facetName);
-			if (facetConfig == null) facetConfig = defaultFacetConfigProvider.apply(facetName);
+			FacetConfig facetConfig = getFacetConfig(facetName);
 
 			InternalResultFilter facetFilter = filterContext.getInternalFilters().get(facetName);
 
@@ -0,0 +1,142 @@
+package de.cxp.ocs.elasticsearch.facets;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.bucket.nested.Nested;
+import org.elasticsearch.search.aggregations.bucket.nested.NestedAggregationBuilder;
+
+import de.cxp.ocs.elasticsearch.query.filter.FilterContext;
+import de.cxp.ocs.model.result.Facet;
+import de.cxp.ocs.util.SearchQueryBuilder;
+
+/**
+ * Groups several {@link NestedFacetCreator}s that run on the same nested path,
+ * so that their aggregations share a single nested aggregation instead of
+ * entering the same nested documents once per creator.
+ */
+public class NestedPathFacetCreator implements FacetCreator {
+
+	private final List<NestedFacetCreator> innerCreators;
+
+	private final String aggregationName;
+
+	/**
+	 * @param creators
+	 *        facet creators that must all have the same full nested path.
+	 */
+	public NestedPathFacetCreator(List<NestedFacetCreator> creators) {
+		if (creators.isEmpty()) throw new IllegalArgumentException("at least one facet creator required");
+		innerCreators = creators;
+		aggregationName = "_nested_" + creators.get(0).getFullNestedPath();
+	}
+
+	/**
+	 * Groups the given facet creators by their nested path. Creators with a
+	 * unique nested path and creators that are no NestedFacetCreators are
+	 * returned as they are. The order of the creators is kept.
+	 *
+	 * @param creators
+	 *        facet creators
+	 * @return list of facet creators where the nested facet creators are
+	 *         grouped by their nested path
+	 */
+	public static List<FacetCreator> groupByNestedPath(Collection<FacetCreator> creators) {
+		Map<Object, List<FacetCreator>> groupedCreators = new LinkedHashMap<>();
+		for (FacetCreator creator : creators) {
+			Object groupKey = creator instanceof NestedFacetCreator ? ((NestedFacetCreator) creator).getFullNestedPath() : creator;
+			groupedCreators.computeIfAbsent(groupKey, k -> new ArrayList<>(2)).add(creator);
+		}
+
+		List<FacetCreator> finalCreators = new ArrayList<>(groupedCreators.size());
+		for (List<FacetCreator> group : groupedCreators.values()) {
+			if (group.size() == 1) {
+				finalCreators.add(group.get(0));
+			}
+			else {
+				List<NestedFacetCreator> nestedCreators = new ArrayList<>(group.size());
+				group.forEach(c -> nestedCreators.add((NestedFacetCreator) c));
+				finalCreators.add(new NestedPathFacetCreator(nestedCreators));
+			}
+		}
+		return finalCreators;
+	}
+
+	@Override
+	public AggregationBuilder buildAggregation() {
+		return buildFilteredAggregation(Collections.emptySet(), Collections.emptySet());
+	}
+
+	@Override
+	public AggregationBuilder buildIncludeFilteredAggregation(Set<String> includeNames) {
+		return buildFilteredAggregation(includeNames, Collections.emptySet());
+	}
+
+	@Override
+	public AggregationBuilder buildExcludeFilteredAggregation(Set<String> excludeNames) {
+		return buildFilteredAggregation(Collections.emptySet(), excludeNames);
+	}
+
+	@Override
+	public AggregationBuilder buildFacetNamesAggregation() {
+		return buildNestedAggregation(Collections.emptySet(), Collections.emptySet(), false);
+	}
+
+	private AggregationBuilder buildFilteredAggregation(Set<String> includedNames, Set<String> excludedNames) {
+		return buildNestedAggregation(includedNames, excludedNames, true);
+	}
+
+	private AggregationBuilder buildNestedAggregation(Set<String> includedNames, Set<String> excludedNames, boolean withValues) {
+		NestedAggregationBuilder nestedAggBuilder = AggregationBuilders.nested(aggregationName, innerCreators.get(0).getFullNestedPath());
+		for (NestedFacetCreator creator : innerCreators) {
+			nestedAggBuilder.subAggregation(creator.buildNestedAggregation(includedNames, excludedNames, withValues));
+		}
+		return nestedAggBuilder;
+	}
+
+	@Override
+	public Collection<Facet> createFacets(Aggregations aggResult, FilterContext filterContext, SearchQueryBuilder linkBuilder) {
+		Nested nestedAgg = aggResult.get(aggregationName);
+		if (nestedAgg == null) return Collections.emptyList();
+
+		List<Facet> facets = new ArrayList<>();
+		for (NestedFacetCreator creator : innerCreators) {
+			facets.addAll(creator.createFacetsFromNestedAggregations(nestedAgg.getAggregations(), filterContext, linkBuilder));
+		}
+		return facets;
+	}
+
+	@Override
+	public Collection<Facet> createFacetNames(Aggregations aggResult, FilterContext filterContext) {
+		Nested nestedAgg = aggResult.get(aggregationName);
+		if (nestedAgg == null) return Collections.emptyList();
+
+		List<Facet> facets = new ArrayList<>();
+		for (NestedFacetCreator creator : innerCreators) {
+			facets.addAll(creator.createFacetNamesFromNestedAggregations(nestedAgg.getAggregations(), filterContext));
+		}
+		return facets;
+	}
+
+	@Override
+	public Optional<Facet> mergeFacets(Facet first, Facet second) {
+		Optional<Facet> mergedFacet = Optional.empty();
+		for (FacetCreator creator : innerCreators) {
+			mergedFacet = creator.mergeFacets(first, second);
+			if (mergedFacet.isPresent()) {
+				break;
+			}
+		}
+		return mergedFacet;
+	}
+
+}
@@ -41,6 +41,11 @@ public class RangeFacetCreator extends NestedFacetCreator {
 		facetConfigs.values().forEach(c -> c.setShowUnselectedOptions(true));
 	}
 
+	@Override
+	protected FacetType getFacetType() {
+		return FacetType.RANGE;
+	}
+
 	@Override
 	protected String getNestedPath() {
 		return FieldConstants.NUMBER_FACET_DATA;
@@ -38,6 +38,11 @@ public class TermFacetCreator extends NestedFacetCreator {
 		super(facetConfigs, defaultFacetConfigProvider);
 	}
 
+	@Override
+	protected FacetType getFacetType() {
+		return FacetType.TERM;
+	}
+
 	@Override
 	protected String getNestedPath() {
 		return FieldConstants.TERM_FACET_DATA;
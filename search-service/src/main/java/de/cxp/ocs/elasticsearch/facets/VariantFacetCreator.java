@@ -23,13 +23,14 @@ public class VariantFacetCreator implements FacetCreator {
 	private final Collection<FacetCreator> innerCreators;
 
 	public VariantFacetCreator(Collection<FacetCreator> creators) {
-		innerCreators = creators;
 		NestedFacetCountCorrector nestedFacetCountCorrector = new NestedFacetCountCorrector(FieldConstants.VARIANTS);
 		creators.forEach(c -> {
 			if (c instanceof NestedFacetCreator) {
 				((NestedFacetCreator) c).setNestedFacetCorrector(nestedFacetCountCorrector);
 			}
 		});
+		// grouping has to be done after the nested path prefix was set
+		innerCreators = NestedPathFacetCreator.groupByNestedPath(creators);
 	}
 
 	@Override
@@ -45,6 +46,11 @@ public class VariantFacetCreator implements FacetCreator {
 		return _buildAggregation(creator -> creator.buildExcludeFilteredAggregation(excludeNames));
 	}
 
+	@Override
+	public AggregationBuilder buildFacetNamesAggregation() {
+		return _buildAggregation(FacetCreator::buildFacetNamesAggregation);
+	}
+
 	public AggregationBuilder _buildAggregation(Function<FacetCreator, AggregationBuilder> subAggCreatorCall) {
 		if (innerCreators.size() == 0) return null;
 		NestedAggregationBuilder nestedAggBuilder = AggregationBuilders.nested("_variants", FieldConstants.VARIANTS);
@@ -64,6 +70,16 @@ public class VariantFacetCreator implements FacetCreator {
 		return facets;
 	}
 
+	@Override
+	public Collection<Facet> createFacetNames(Aggregations aggResult, FilterContext filterContext) {
+		List<Facet> facets = new ArrayList<>();
+		Nested nestedAgg = (Nested) aggResult.get("_variants");
+		for (FacetCreator creator : innerCreators) {
+			facets.addAll(creator.createFacetNames(nestedAgg.getAggregations(), filterContext));
+		}
+		return facets;
+	}
+
 	@Override
 	public Optional<Facet> mergeFacets(Facet first, Facet second) {
 		Optional<Facet> mergedFacet = Optional.empty();
@@ -72,12 +72,17 @@ public class ResultMapper {
 			variantHit = variantPickingStrategy.pick(variantHits, allVariantHitCount);
 		}
 
+		// the parsed source is cached by the search hit, but it's only fetched
+		// once here to make clear that it's the same map for all steps
+		Map<String, Object> source = hit.getSourceAsMap();
 		ResultHit resultHit = new ResultHit()
-				.setDocument(getResultDocument(hit, variantHit))
+				.setDocument(getResultDocument(hit.getId(), source, variantHit))
 				.setIndex(hit.getIndex())
 				.setMatchedQueries(hit.getMatchedQueries());
 
-		addSortFieldPrefix(hit, resultHit, sortedFields);
+		if (source != null && !sortedFields.isEmpty()) {
+			addSortFieldPrefix(source, resultHit, sortedFields);
+		}
 		return resultHit;
 	}
 
@@ -90,18 +95,15 @@ public class ResultMapper {
 	 * The goal is to show "from 10€" if sorted by price ascending and "to 59€"
 	 * if sorted by price descending.
 	 * 
-	 * @param hit
-	 *        ES search hit
+	 * @param source
+	 *        source of the ES search hit
 	 * @param resultHit
 	 *        according OCS mapped result hit
 	 * @param sortedFields
 	 *        map of sort fields
 	 */
 	@SuppressWarnings("unchecked")
-	private static void addSortFieldPrefix(SearchHit hit, ResultHit resultHit, Map<String, SortOrder> sortedFields) {
-		Map<String, Object> source = hit.getSourceAsMap();
-		if (source == null) return;
-
+	private static void addSortFieldPrefix(Map<String, Object> source, ResultHit resultHit, Map<String, SortOrder> sortedFields) {
 		Object sortData = source.get(FieldConstants.SORT_DATA);
 		if (sortData != null && sortData instanceof Map && sortedFields.size() > 0) {
 			sortedFields.forEach((fieldName, order) -> {
@@ -122,12 +124,19 @@ public class ResultMapper {
 		}
 	}
 
-	private static Document getResultDocument(SearchHit hit, SearchHit variantHit) {
-		Map<String, Object> source = hit.getSourceAsMap();
-		Document document = new Document(hit.getId());
+	/**
+	 * The parsed source of the search hit is not used anywhere else, so its
+	 * result data map is taken as the document data instead of copying it.
+	 */
+	@SuppressWarnings("unchecked")
+	private static Document getResultDocument(String id, Map<String, Object> source, SearchHit variantHit) {
+		Document document = new Document(id);
 
 		if (source != null) {
-			putDataIntoResult(hit.getSourceAsMap(), document.getData(), FieldConstants.RESULT_DATA);
+			Object resultData = source.get(FieldConstants.RESULT_DATA);
+			if (resultData instanceof Map) {
+				document.setData((Map<String, Object>) resultData);
+			}
 			if (variantHit != null) {
 				putDataIntoResult(variantHit.getSourceAsMap(), document.getData(), FieldConstants.RESULT_DATA);
 			}
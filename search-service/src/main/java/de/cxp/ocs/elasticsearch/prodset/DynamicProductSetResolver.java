@@ -3,6 +3,8 @@ package de.cxp.ocs.elasticsearch.prodset;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import de.cxp.ocs.SearchContext;
 import de.cxp.ocs.elasticsearch.Searcher;
@@ -19,42 +21,70 @@ public class DynamicProductSetResolver implements ProductSetResolver {
 
 	@Override
 	public StaticProductSet resolve(ProductSet dynamicProductSet, int extraBuffer, Searcher searcher, SearchContext searchContext) {
-		DynamicProductSet productSet = (DynamicProductSet) dynamicProductSet;
+		ProductSetCache cache = searchContext.productSetCache;
+		String cacheKey = cache == null ? null : ProductSetCache.createKey((DynamicProductSet) dynamicProductSet, extraBuffer);
+		if (cache != null) {
+			Optional<String[]> cachedIds = cache.get(cacheKey);
+			if (cachedIds.isPresent()) {
+				return new StaticProductSet(cachedIds.get(), dynamicProductSet.getName());
+			}
+		}
+		try {
+			SearchResult prodSetResult = searcher.find(buildParams((DynamicProductSet) dynamicProductSet, extraBuffer, searchContext));
+			return cacheResolvedSet(cache, cacheKey, toStaticProductSet(prodSetResult, dynamicProductSet));
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
 
+	@Override
+	public CompletableFuture<StaticProductSet> resolveAsync(ProductSet dynamicProductSet, int extraBuffer, Searcher searcher, SearchContext searchContext) {
+		ProductSetCache cache = searchContext.productSetCache;
+		String cacheKey = cache == null ? null : ProductSetCache.createKey((DynamicProductSet) dynamicProductSet, extraBuffer);
+		if (cache != null) {
+			Optional<String[]> cachedIds = cache.get(cacheKey);
+			if (cachedIds.isPresent()) {
+				return CompletableFuture.completedFuture(new StaticProductSet(cachedIds.get(), dynamicProductSet.getName()));
+			}
+		}
+		return searcher.findAsync(buildParams((DynamicProductSet) dynamicProductSet, extraBuffer, searchContext))
+				.thenApply(prodSetResult -> cacheResolvedSet(cache, cacheKey, toStaticProductSet(prodSetResult, dynamicProductSet)));
+	}
+
+	private StaticProductSet cacheResolvedSet(ProductSetCache cache, String cacheKey, StaticProductSet resolvedSet) {
+		if (cache != null) {
+			cache.put(cacheKey, resolvedSet.ids);
+		}
+		return resolvedSet;
+	}
+
+	private InternalSearchParams buildParams(DynamicProductSet productSet, int extraBuffer, SearchContext searchContext) {
 		SearchQuery searchQuery = new SearchQuery();
 		searchQuery.q = productSet.query;
 		searchQuery.sort = productSet.sort;
 		searchQuery.limit = productSet.limit + extraBuffer;
 		searchQuery.withFacets = false;
 
-		// TODO: add caching
-		StaticProductSet resolved = search(dynamicProductSet, searcher, searchContext, productSet, searchQuery);
-		return resolved;
-	}
-
-	private StaticProductSet search(ProductSet dynamicProductSet, Searcher searcher, SearchContext searchContext, DynamicProductSet productSet, SearchQuery searchQuery) {
 		InternalSearchParams productSetParams = SearchParamsParser.extractInternalParams(
 				searchQuery,
 				productSet.filters == null ? Collections.emptyMap() : productSet.filters,
 				searchContext);
 		productSetParams.setWithResultData(false);
+		return productSetParams;
+	}
 
-		try {
-			SearchResult prodSetResult = searcher.find(productSetParams);
-			if (prodSetResult.getSlices().size() > 0) {
-				String[] ids = new String[prodSetResult.getSlices().get(0).hits.size()];
-				int i = 0;
-				for (ResultHit hit : prodSetResult.getSlices().get(0).hits) {
-					ids[i++] = hit.getDocument().id;
-				}
-				return new StaticProductSet(ids, dynamicProductSet.getName());
-			}
-			else {
-				return new StaticProductSet(new String[0], dynamicProductSet.getName());
+	private StaticProductSet toStaticProductSet(SearchResult prodSetResult, ProductSet dynamicProductSet) {
+		if (prodSetResult.getSlices().size() > 0) {
+			String[] ids = new String[prodSetResult.getSlices().get(0).hits.size()];
+			int i = 0;
+			for (ResultHit hit : prodSetResult.getSlices().get(0).hits) {
+				ids[i++] = hit.getDocument().id;
 			}
+			return new StaticProductSet(ids, dynamicProductSet.getName());
 		}
-		catch (IOException e) {
-			throw new UncheckedIOException(e);
+		else {
+			return new StaticProductSet(new String[0], dynamicProductSet.getName());
 		}
 	}
 
@@ -13,7 +13,7 @@ import java.util.concurrent.CompletableFuture;
 
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.index.query.BoolQueryBuilder;
-import org.elasticsearch.index.query.Operator;
+import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.SearchHit;
 
@@ -56,6 +56,20 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class HeroProductHandler {
 
+	/**
+	 * Maximum amount of clauses per boolean query. Above that amount of IDs,
+	 * the ids queries are grouped into nested boolean queries. This keeps
+	 * each boolean query below the default max-clause-count of 1024.
+	 */
+	static final int MAX_CLAUSES = 1000;
+
+	/**
+	 * Score difference between two consecutive hero products. It's high
+	 * enough, so the scores of the generic user query don't change the order
+	 * of the hero products.
+	 */
+	static final float RANK_STEP = 10_000f;
+
 	@NonNull
 	private final static Map<String, ProductSetResolver> resolvers = new HashMap<>(2);
 	static {
@@ -91,34 +105,109 @@ public class HeroProductHandler {
 
 			if (resolver == null) {
 				log.error("No resolver found for product set type '{}'", set.getType());
-				resolvedSets[position] = new StaticProductSet().setIds(new String[0]).setName(set.getName());
+				resolvedSets[position] = emptySet(set);
 				futures[position] = CompletableFuture.completedFuture(null);
 			}
 			// only run async, if there are more than 1 sets
 			else if (resolver.runAsync() && productSets.length > 1) {
-				futures[position] = CompletableFuture.supplyAsync(() -> resolver.resolve(set, extraBuffer[0], searcher, searchContext))
-						.thenAccept(resolvedIds -> resolvedSets[position] = resolvedIds);
+				futures[position] = CompletableFuture.supplyAsync(() -> resolver.resolve(set, extraBuffer[0], searcher, searchContext), searcher.getProductSetExecutor())
+						.handle((resolvedIds, e) -> {
+							resolvedSets[position] = orEmptySet(resolvedIds, e, set);
+							return null;
+						});
 				extraBuffer[0] += set.getSize();
 			}
 			else {
-				resolvedSets[position] = resolver.resolve(set, extraBuffer[0], searcher, searchContext);
+				try {
+					resolvedSets[position] = resolver.resolve(set, extraBuffer[0], searcher, searchContext);
+				}
+				catch (RuntimeException e) {
+					resolvedSets[position] = orEmptySet(null, e, set);
+				}
 				extraBuffer[0] += set.getSize();
 				futures[position] = CompletableFuture.completedFuture(null);
 			}
 		}
-		try {
-			CompletableFuture.allOf(futures).join();
+		CompletableFuture.allOf(futures).join();
 
-			if (productSets.length > 1) {
-				// deduplicate ids from the different sets
-				deduplicate(productSets, resolvedSets);
+		if (productSets.length > 1) {
+			// deduplicate ids from the different sets
+			deduplicate(productSets, resolvedSets);
+		}
+
+		return resolvedSets;
+	}
+
+	/**
+	 * Same as {@link #resolve(ProductSet[], Searcher, SearchContext)} but
+	 * without blocking the calling thread.
+	 * 
+	 * @param productSets
+	 *        array of product sets to be resolved to static product sets
+	 * @param searcher
+	 *        matching Searcher instance for these products
+	 * @param searchContext
+	 *        context
+	 * @return future of the array of resolved product sets
+	 */
+	public static CompletableFuture<StaticProductSet[]> resolveAsync(ProductSet[] productSets, Searcher searcher, SearchContext searchContext) {
+		StaticProductSet[] resolvedSets = new StaticProductSet[productSets.length];
+		@SuppressWarnings("unchecked")
+		CompletableFuture<Void>[] futures = new CompletableFuture[productSets.length];
+		// fetch extra products for dynamic product sets, in case there are
+		// overlapping IDs
+		int extraBuffer = 0;
+		for (int i = 0; i < productSets.length; i++) {
+			final int position = i;
+			ProductSet set = productSets[i];
+			final ProductSetResolver resolver = resolvers.get(set.getType());
+			if (resolver == null) {
+				log.error("No resolver found for product set type '{}'", set.getType());
+				resolvedSets[position] = emptySet(set);
+				futures[position] = CompletableFuture.completedFuture(null);
+			}
+			else {
+				CompletableFuture<StaticProductSet> resolvedSet;
+				try {
+					resolvedSet = resolver.resolveAsync(set, extraBuffer, searcher, searchContext);
+				}
+				catch (RuntimeException e) {
+					resolvedSet = new CompletableFuture<>();
+					resolvedSet.completeExceptionally(e);
+				}
+				futures[position] = resolvedSet
+						.handle((resolvedIds, e) -> {
+							resolvedSets[position] = orEmptySet(resolvedIds, e, set);
+							return null;
+						});
+				extraBuffer += set.getSize();
 			}
 		}
-		catch (Exception e) {
-			log.error("resolving product sets failed", e);
+		// failures are handled per set, so this always completes normally
+		return CompletableFuture.allOf(futures)
+				.thenApply(done -> {
+					if (productSets.length > 1) {
+						// deduplicate ids from the different sets
+						deduplicate(productSets, resolvedSets);
+					}
+					return resolvedSets;
+				});
+	}
+
+	/**
+	 * A product set that could not be resolved is replaced by an empty one,
+	 * so the other sets are still shown at their position.
+	 */
+	private static StaticProductSet orEmptySet(StaticProductSet resolvedSet, Throwable e, ProductSet set) {
+		if (e != null || resolvedSet == null) {
+			log.error("resolving product set '{}' of type '{}' failed", set.getName(), set.getType(), e);
+			return emptySet(set);
 		}
+		return resolvedSet;
+	}
 
-		return resolvedSets;
+	private static StaticProductSet emptySet(ProductSet set) {
+		return new StaticProductSet().setIds(new String[0]).setName(set.getName());
 	}
 
 	private static void deduplicate(ProductSet[] productSets, StaticProductSet[] resolvedSets) {
@@ -146,42 +235,74 @@ public class HeroProductHandler {
 		}
 	}
 
+	/**
+	 * <p>
+	 * Builds the query that boosts the hero products to the top in the order
+	 * of their product sets.
+	 * </p>
+	 * <p>
+	 * Each hero product is matched by its own ids query, whose boost follows
+	 * its position across all sets: the first product of the first set gets
+	 * the highest score and each following product gets {@link #RANK_STEP}
+	 * less. So the order is completely defined by the query, also across the
+	 * sets and the result pages. Each set is a separate should clause, and
+	 * sets with more than {@link #MAX_CLAUSES} IDs are split into nested
+	 * boolean queries of consecutive IDs.
+	 * </p>
+	 * 
+	 * @param internalParams
+	 *        internal parameters with the resolved hero product sets
+	 * @return the query or empty if there are no hero product sets
+	 */
 	public static Optional<BoolQueryBuilder> getHeroQuery(InternalSearchParams internalParams) {
 		StaticProductSet[] productSets = internalParams.heroProductSets;
 		if (productSets.length > 0) {
+			// IDs are only boosted with their first occurrence
+			Set<String> rankedIds = new HashSet<>();
+			for (StaticProductSet productSet : productSets) {
+				rankedIds.addAll(Arrays.asList(productSet.ids));
+			}
+			int rank = rankedIds.size();
+			rankedIds.clear();
+
 			BoolQueryBuilder boolQuery = QueryBuilders.boolQuery();
-			float boost = 100f * (float) Math.pow(10, productSets.length);
 			for (int i = 0; i < productSets.length; i++) {
-				if (productSets[i].ids.length > 0) {
-					// normaly we would generate a query-string query to
-					// guarantee the order of the IDs, but that's limited to
-					// 1024 clauses. So in case we have more IDs, we have to
-					// switch to the normal ids query
-					if (productSets[i].ids.length > 1024) {
-						log.warn("Cannot guarantee the order of the provided IDs for a product set with more than 1024 IDs (for request with user query = {})",
-								internalParams.getUserQuery());
-						boolQuery.should(QueryBuilders.idsQuery().addIds(productSets[i].ids).boost(boost));
-					}
-					else {
-						// since this is "just" another should clause, the
-						// product
-						// sets are still influenced by the matches of the
-						// generic
-						// user query.
-						boolQuery.should(
-								QueryBuilders.queryStringQuery(idsAsOrderedBoostQuery(productSets[i].ids))
-										.boost(boost)
-										.defaultField("_id")
-										.defaultOperator(Operator.OR));
+				List<QueryBuilder> idQueries = new ArrayList<>(productSets[i].ids.length);
+				for (String id : productSets[i].ids) {
+					if (rankedIds.add(id)) {
+						idQueries.add(QueryBuilders.idsQuery().addIds(id).boost(RANK_STEP * rank--));
 					}
 				}
-				boost /= 10;
+				if (!idQueries.isEmpty()) {
+					// since this is "just" another should clause, the product
+					// sets are still influenced by the matches of the generic
+					// user query.
+					boolQuery.should(buildOrderedIdsQuery(idQueries));
+				}
 			}
 			return Optional.of(boolQuery);
 		}
 		return Optional.empty();
 	}
 
+	/**
+	 * Ids queries are used instead of a single query-string query, because
+	 * they don't have to be parsed. Since a product matches only one of them,
+	 * the score of the returned query is the boost of that ids query.
+	 */
+	private static BoolQueryBuilder buildOrderedIdsQuery(List<QueryBuilder> idQueries) {
+		BoolQueryBuilder orderedIdsQuery = QueryBuilders.boolQuery();
+		if (idQueries.size() <= MAX_CLAUSES) {
+			idQueries.forEach(orderedIdsQuery::should);
+		}
+		else {
+			for (int from = 0; from < idQueries.size(); from += MAX_CLAUSES) {
+				orderedIdsQuery.should(buildOrderedIdsQuery(idQueries.subList(from, Math.min(idQueries.size(), from + MAX_CLAUSES))));
+			}
+		}
+		return orderedIdsQuery;
+	}
+
 	/**
 	 * Extend MasterVariantQuery to inject the hero products and boost them to
 	 * the top.
@@ -196,21 +317,6 @@ public class HeroProductHandler {
 				.ifPresent(bq -> searchQuery.setMasterLevelQuery(bq.should(searchQuery.getMasterLevelQuery())));
 	}
 
-	private static String idsAsOrderedBoostQuery(@NonNull String[] ids) {
-		long boost = 10 * ids.length;
-		// rough approx. of string-length
-		StringBuilder idsOrderedBoostQuery = new StringBuilder(ids.length * (ids[0].length() + 2 + String.valueOf(boost).length()));
-		for (String id : ids) {
-			idsOrderedBoostQuery
-					.append(id)
-					.append('^')
-					.append(String.valueOf(boost))
-					.append(' ');
-			boost -= 10;
-		}
-		return idsOrderedBoostQuery.toString();
-	}
-
 	/**
 	 * <p>
 	 * Get minimum hitCount to accept the natural search to have matched
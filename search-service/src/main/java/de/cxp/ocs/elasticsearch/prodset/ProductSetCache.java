@@ -0,0 +1,110 @@
+package de.cxp.ocs.elasticsearch.prodset;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+
+import de.cxp.ocs.model.params.DynamicProductSet;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+
+/**
+ * Keeps the IDs of resolved dynamic product sets for a limited time. Since
+ * the same dynamic product sets are requested again and again (e.g. at
+ * campaign pages), this saves a complete search per product set. The cache is
+ * kept per tenant and must be invalidated as soon as the index behind the
+ * tenant changes.
+ */
+public class ProductSetCache {
+
+	private final Cache<String, String[]> cache;
+
+	@Getter
+	private final int maxSize;
+
+	@Getter
+	private final int expireAfterWriteSeconds;
+
+	@Getter
+	private final String indexName;
+
+	private final Counter	hitCounter;
+	private final Counter	missCounter;
+	private final Counter	evictionCounter;
+
+	public ProductSetCache(int maxSize, int expireAfterWriteSeconds, String tenant, String indexName, MeterRegistry registry) {
+		this.maxSize = maxSize;
+		this.expireAfterWriteSeconds = expireAfterWriteSeconds;
+		this.indexName = indexName;
+		hitCounter = getCounter("hit", tenant, registry);
+		missCounter = getCounter("miss", tenant, registry);
+		evictionCounter = getCounter("eviction", tenant, registry);
+		cache = CacheBuilder.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+				.<String, String[]> removalListener(notification -> {
+					if (RemovalCause.SIZE.equals(notification.getCause())) {
+						evictionCounter.increment();
+					}
+				})
+				.build();
+	}
+
+	private static Counter getCounter(String type, String tenant, MeterRegistry registry) {
+		return Counter.builder("productSetCache")
+				.tag("tenant", tenant)
+				.tag("type", type)
+				.register(registry);
+	}
+
+	/**
+	 * Creates the key of a dynamic product set. The name of the set is not
+	 * part of it, since it does not influence the resolved IDs.
+	 *
+	 * @param productSet
+	 *        dynamic product set
+	 * @param extraBuffer
+	 *        amount of extra products fetched for that set
+	 * @return cache key
+	 */
+	static String createKey(DynamicProductSet productSet, int extraBuffer) {
+		return new StringBuilder()
+				.append(productSet.query)
+				.append('|').append(productSet.sort)
+				.append('|').append(productSet.limit + extraBuffer)
+				.append('|').append(new TreeMap<>(productSet.filters == null ? Collections.emptyMap() : productSet.filters))
+				.toString();
+	}
+
+	/**
+	 * The returned array is shared, so it must not be modified.
+	 *
+	 * @param key
+	 *        cache key
+	 * @return the cached IDs or empty if not cached
+	 */
+	Optional<String[]> get(String key) {
+		String[] ids = cache.getIfPresent(key);
+		if (ids == null) {
+			missCounter.increment();
+		}
+		else {
+			hitCounter.increment();
+		}
+		return Optional.ofNullable(ids);
+	}
+
+	void put(String key, String[] ids) {
+		cache.put(key, ids);
+	}
+
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+}
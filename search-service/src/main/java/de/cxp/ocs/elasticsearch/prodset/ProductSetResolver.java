@@ -1,5 +1,7 @@
 package de.cxp.ocs.elasticsearch.prodset;
 
+import java.util.concurrent.CompletableFuture;
+
 import de.cxp.ocs.SearchContext;
 import de.cxp.ocs.elasticsearch.Searcher;
 import de.cxp.ocs.model.params.ProductSet;
@@ -11,4 +13,23 @@ public interface ProductSetResolver {
 
 	StaticProductSet resolve(ProductSet set, int extraBuffer, Searcher searcher, SearchContext searchContext);
 
+	/**
+	 * Resolve the product set without blocking the calling thread. Per default
+	 * the blocking resolve method is run with the product set executor of the
+	 * searcher.
+	 * 
+	 * @param set
+	 *        product set to resolve
+	 * @param extraBuffer
+	 *        amount of extra products to fetch
+	 * @param searcher
+	 *        matching Searcher instance for these products
+	 * @param searchContext
+	 *        context
+	 * @return future of the resolved product set
+	 */
+	default CompletableFuture<StaticProductSet> resolveAsync(ProductSet set, int extraBuffer, Searcher searcher, SearchContext searchContext) {
+		return CompletableFuture.supplyAsync(() -> resolve(set, extraBuffer, searcher, searchContext), searcher.getProductSetExecutor());
+	}
+
 }
@@ -1,5 +1,6 @@
 package de.cxp.ocs.elasticsearch.prodset;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -21,22 +22,9 @@ public class StaticProductSetResolver implements ProductSetResolver {
 	@Override
 	public StaticProductSet resolve(final ProductSet productSet, int extraBuffer, Searcher searcher, SearchContext searchContext) {
 		StaticProductSet staticSet = (StaticProductSet) productSet;
-		IdsQueryBuilder addIds = QueryBuilders.idsQuery().addIds(staticSet.getIds());
 		try {
-			SearchResponse searchResponse = searcher.executeSearchRequest(SearchSourceBuilder.searchSource()
-					.query(addIds)
-					.fetchSource(false)
-					.size(productSet.getSize()));
-			if (searchResponse.getHits().getTotalHits().value == 0) {
-				staticSet.setIds(new String[0]);
-			}
-			else if (searchResponse.getHits().getTotalHits().value < productSet.getSize()
-					&& searchResponse.getHits().getTotalHits().relation.equals(TotalHits.Relation.EQUAL_TO)) {
-				staticSet.setIds(StreamSupport.stream(searchResponse.getHits().spliterator(), false)
-						.map(hit -> hit.getId())
-						.collect(Collectors.toList())
-						.toArray(new String[0]));
-			}
+			SearchResponse searchResponse = searcher.executeSearchRequest(buildVerificationQuery(staticSet));
+			verifyIds(staticSet, searchResponse);
 		}
 		catch (Exception e) {
 			log.error("{} while verifying productSet ids. Won't verify.", e.getMessage());
@@ -44,6 +32,42 @@ public class StaticProductSetResolver implements ProductSetResolver {
 		return staticSet;
 	}
 
+	@Override
+	public CompletableFuture<StaticProductSet> resolveAsync(ProductSet productSet, int extraBuffer, Searcher searcher, SearchContext searchContext) {
+		StaticProductSet staticSet = (StaticProductSet) productSet;
+		return searcher.executeSearchRequestAsync(buildVerificationQuery(staticSet))
+				.handle((searchResponse, e) -> {
+					if (e != null) {
+						log.error("{} while verifying productSet ids. Won't verify.", e.getMessage());
+					}
+					else {
+						verifyIds(staticSet, searchResponse);
+					}
+					return staticSet;
+				});
+	}
+
+	private SearchSourceBuilder buildVerificationQuery(StaticProductSet staticSet) {
+		IdsQueryBuilder addIds = QueryBuilders.idsQuery().addIds(staticSet.getIds());
+		return SearchSourceBuilder.searchSource()
+				.query(addIds)
+				.fetchSource(false)
+				.size(staticSet.getSize());
+	}
+
+	private void verifyIds(StaticProductSet staticSet, SearchResponse searchResponse) {
+		if (searchResponse.getHits().getTotalHits().value == 0) {
+			staticSet.setIds(new String[0]);
+		}
+		else if (searchResponse.getHits().getTotalHits().value < staticSet.getSize()
+				&& searchResponse.getHits().getTotalHits().relation.equals(TotalHits.Relation.EQUAL_TO)) {
+			staticSet.setIds(StreamSupport.stream(searchResponse.getHits().spliterator(), false)
+					.map(hit -> hit.getId())
+					.collect(Collectors.toList())
+					.toArray(new String[0]));
+		}
+	}
+
 	@Override
 	public boolean runAsync() {
 		return true;
@@ -1,12 +1,5 @@
 package de.cxp.ocs.elasticsearch.query.analyzer;
 
-import java.io.BufferedInputStream;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -37,77 +30,41 @@ import querqy.model.Term;
 import querqy.parser.QuerqyParser;
 import querqy.parser.WhiteSpaceQuerqyParser;
 import querqy.rewrite.RewriteChain;
-import querqy.rewrite.RewriterFactory;
-import querqy.rewrite.commonrules.SimpleCommonRulesRewriterFactory;
-import querqy.rewrite.commonrules.WhiteSpaceQuerqyParserFactory;
-import querqy.rewrite.commonrules.select.ExpressionCriteriaSelectionStrategyFactory;
 import querqy.rewrite.experimental.LocalSearchEngineRequestAdapter;
 
 @Slf4j
 public class QuerqyQueryExpander implements UserQueryAnalyzer, ConfigurableExtension {
 
-	private final QuerqyParser	parser			= new WhiteSpaceQuerqyParser();
-	private RewriteChain		rewriteChain	= null;
+	private final QuerqyParser				parser	= new WhiteSpaceQuerqyParser();
+	private QuerqyRulesRegistry.RulesHolder	rules	= null;
 
+	/**
+	 * The rules are compiled only once per rules source and shared with all
+	 * other expanders that use the same source (see
+	 * {@link QuerqyRulesRegistry}). They are only compiled again, if the
+	 * source changed.
+	 */
 	@Override
 	public void initialize(Map<String, String> settings) {
 		String commonRulesLocation = settings == null ? null : settings.get("common_rules_url");
-		try {
-			if (commonRulesLocation == null) {
-				log.error("no 'common_rules_url' provided! Won't enrich queries with querqy.");
-			}
-			else if (commonRulesLocation.startsWith("http")) {
-				URL url = new URL(commonRulesLocation);
-				BufferedInputStream resourceStream = new BufferedInputStream(url.openStream());
-				rewriteChain = initFromStream(resourceStream);
-			}
-			else {
-				InputStream resourceStream;
-
-				File rulesFile = new File(commonRulesLocation);
-				if (rulesFile.exists()) {
-					resourceStream = new FileInputStream(rulesFile);
-				}
-				else {
-					resourceStream = this.getClass().getClassLoader().getResourceAsStream(commonRulesLocation);
-				}
-
-				if (resourceStream != null) {
-					rewriteChain = initFromStream(resourceStream);
-				}
-				else {
-					log.error("resource '{}' not found. querqy rewriter not initialized", commonRulesLocation);
-				}
-			}
-		}
-		catch (Exception e) {
-			log.error("Failed to load common rules from url {}", commonRulesLocation, e);
+		if (commonRulesLocation == null) {
+			log.error("no 'common_rules_url' provided! Won't enrich queries with querqy.");
 		}
-		if (rewriteChain != null) {
-			log.info("Successfully initialized querqy from rules at {}", commonRulesLocation);
+		else {
+			rules = QuerqyRulesRegistry.getRules(commonRulesLocation);
+			if (rules != null) {
+				log.info("Successfully initialized querqy from rules at {}", commonRulesLocation);
+			}
 		}
 	}
 
-	private RewriteChain initFromStream(InputStream resourceStream) throws IOException {
-		List<RewriterFactory> factories;
-		factories = Collections.singletonList(
-				new SimpleCommonRulesRewriterFactory(
-						"common_rules",
-						new InputStreamReader(resourceStream),
-						true,
-						new WhiteSpaceQuerqyParserFactory(),
-						true,
-						Collections.emptyMap(),
-						new ExpressionCriteriaSelectionStrategyFactory(), false));
-		return new RewriteChain(factories);
-	}
-
 	@Override
 	public List<QueryStringTerm> analyze(String userQuery) {
 		// TODO: add extension point for "QueryExpander" and to be like that
 		// if a different analyzer is used, it should also be possible to
 		// construct an expanded query from a list of QueryStringTerm-s
 		ExpandedQuery expandedQuery = new ExpandedQuery(parser.parse(userQuery));
+		RewriteChain rewriteChain = rules == null ? null : rules.getRewriteChain();
 		if (rewriteChain != null) {
 			rewriteChain.rewrite(expandedQuery, new LocalSearchEngineRequestAdapter(rewriteChain, Collections.emptyMap()));
 		}
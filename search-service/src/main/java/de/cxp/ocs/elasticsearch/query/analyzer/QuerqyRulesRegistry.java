@@ -0,0 +1,188 @@
+package de.cxp.ocs.elasticsearch.query.analyzer;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import querqy.rewrite.RewriteChain;
+import querqy.rewrite.RewriterFactory;
+import querqy.rewrite.commonrules.SimpleCommonRulesRewriterFactory;
+import querqy.rewrite.commonrules.WhiteSpaceQuerqyParserFactory;
+import querqy.rewrite.commonrules.select.ExpressionCriteriaSelectionStrategyFactory;
+
+/**
+ * <p>
+ * Compiles each distinct common-rules source only once and shares the
+ * resulting rewrite chain with all QuerqyQueryExpanders that use the same
+ * source, even across tenants.
+ * </p>
+ * <p>
+ * The registry checks if a source changed for each initialization of an
+ * expander and with every call of {@link #refreshAll()}, which is done with
+ * every scheduled config refresh: files by their modification time and
+ * size, URLs by their ETag or Last-Modified header and in any other case by
+ * the hash of the loaded content. The rules are only compiled again if the
+ * content changed. Resources from the classpath are never reloaded.
+ * </p>
+ */
+@Slf4j
+public class QuerqyRulesRegistry {
+
+	private static final int CONNECT_TIMEOUT_MS = 5_000;
+
+	private static final int READ_TIMEOUT_MS = 30_000;
+
+	private static final Map<String, RulesHolder> rulesPerSource = new ConcurrentHashMap<>();
+
+	private QuerqyRulesRegistry() {}
+
+	/**
+	 * Holds the latest compiled rules of a source. Expanders keep the holder,
+	 * so they use the new rules as soon as they are swapped.
+	 */
+	static class RulesHolder {
+
+		private volatile RewriteChain rewriteChain;
+
+		private volatile SourceVersion version;
+
+		RewriteChain getRewriteChain() {
+			return rewriteChain;
+		}
+	}
+
+	@RequiredArgsConstructor
+	private static class SourceVersion {
+
+		private final String versionTag;
+
+		private final HashCode contentHash;
+	}
+
+	/**
+	 * Returns the holder of the compiled rules from the given source. The
+	 * rules are loaded and compiled if they were never loaded before or if
+	 * the source changed.
+	 *
+	 * @param rulesLocation
+	 *        URL, file path or classpath resource
+	 * @return holder of the compiled rules or null if the rules could not be
+	 *         loaded at all
+	 */
+	static RulesHolder getRules(String rulesLocation) {
+		RulesHolder holder = rulesPerSource.computeIfAbsent(rulesLocation, l -> new RulesHolder());
+		refresh(holder, rulesLocation);
+		if (holder.rewriteChain == null) {
+			// don't retry sources that never worked with every refresh
+			rulesPerSource.remove(rulesLocation, holder);
+			return null;
+		}
+		return holder;
+	}
+
+	/**
+	 * Checks all sources that were requested so far for changes and compiles
+	 * the changed rules again. The expanders that use those rules pick them
+	 * up without being initialized again.
+	 */
+	public static void refreshAll() {
+		rulesPerSource.forEach((rulesLocation, holder) -> refresh(holder, rulesLocation));
+	}
+
+	private static void refresh(RulesHolder holder, String rulesLocation) {
+		// the holder is locked, so the same source is not loaded concurrently
+		synchronized (holder) {
+			try {
+				load(holder, rulesLocation);
+			}
+			catch (Exception e) {
+				if (holder.rewriteChain == null) {
+					log.error("Failed to load common rules from {}", rulesLocation, e);
+				}
+				else {
+					log.error("Failed to reload common rules from {}, keep using the previous rules", rulesLocation, e);
+				}
+			}
+		}
+	}
+
+	private static void load(RulesHolder holder, String rulesLocation) throws IOException {
+		SourceVersion previousVersion = holder.version;
+		byte[] content;
+		String versionTag;
+		if (rulesLocation.startsWith("http")) {
+			URLConnection connection = new URL(rulesLocation).openConnection();
+			connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+			connection.setReadTimeout(READ_TIMEOUT_MS);
+			if (previousVersion != null && previousVersion.versionTag != null && connection instanceof HttpURLConnection) {
+				connection.setRequestProperty(previousVersion.versionTag.startsWith("etag:") ? "If-None-Match" : "If-Modified-Since",
+						previousVersion.versionTag.substring(previousVersion.versionTag.indexOf(':') + 1));
+			}
+			if (connection instanceof HttpURLConnection
+					&& ((HttpURLConnection) connection).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+				return;
+			}
+			versionTag = connection.getHeaderField("ETag") != null ? "etag:" + connection.getHeaderField("ETag")
+					: connection.getHeaderField("Last-Modified") != null ? "modified:" + connection.getHeaderField("Last-Modified") : null;
+			try (InputStream resourceStream = connection.getInputStream()) {
+				content = ByteStreams.toByteArray(resourceStream);
+			}
+		}
+		else {
+			File rulesFile = new File(rulesLocation);
+			if (rulesFile.exists()) {
+				versionTag = rulesFile.lastModified() + "/" + rulesFile.length();
+				if (previousVersion != null && versionTag.equals(previousVersion.versionTag)) {
+					return;
+				}
+				content = Files.readAllBytes(rulesFile.toPath());
+			}
+			else {
+				// classpath resources don't change at runtime
+				if (previousVersion != null) return;
+				versionTag = null;
+				try (InputStream resourceStream = QuerqyRulesRegistry.class.getClassLoader().getResourceAsStream(rulesLocation)) {
+					if (resourceStream == null) {
+						throw new IOException("resource '" + rulesLocation + "' not found");
+					}
+					content = ByteStreams.toByteArray(resourceStream);
+				}
+			}
+		}
+
+		HashCode contentHash = Hashing.sha256().hashBytes(content);
+		if (previousVersion == null || !contentHash.equals(previousVersion.contentHash)) {
+			holder.rewriteChain = compile(content);
+			log.info("Successfully compiled querqy rules from {}", rulesLocation);
+		}
+		holder.version = new SourceVersion(versionTag, contentHash);
+	}
+
+	private static RewriteChain compile(byte[] content) throws IOException {
+		RewriterFactory factory = new SimpleCommonRulesRewriterFactory(
+				"common_rules",
+				new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8),
+				true,
+				new WhiteSpaceQuerqyParserFactory(),
+				true,
+				Collections.emptyMap(),
+				new ExpressionCriteriaSelectionStrategyFactory(), false);
+		return new RewriteChain(Collections.singletonList(factory));
+	}
+}
@@ -11,8 +11,19 @@ public class WhitespaceAnalyzer implements UserQueryAnalyzer {
 
 	@Override
 	public List<QueryStringTerm> analyze(String userQuery) {
-		return toQueryStringWordList(
-				userQuery.toLowerCase().trim().split("\\s+"));
+		String query = userQuery.toLowerCase();
+		List<QueryStringTerm> queryWords = new ArrayList<>();
+		int end = 0;
+		int start;
+		while ((start = skipWhitespace(query, end)) < query.length()) {
+			end = findWhitespace(query, start);
+			queryWords.add(new WeightedWord(query.substring(start, end)));
+		}
+		if (queryWords.isEmpty()) {
+			// same as splitting an empty string
+			queryWords.add(new WeightedWord(""));
+		}
+		return queryWords;
 	}
 
 	public static List<QueryStringTerm> toQueryStringWordList(String[] words) {
@@ -22,4 +33,37 @@ public class WhitespaceAnalyzer implements UserQueryAnalyzer {
 		}
 		return queryWords;
 	}
+
+	/**
+	 * The analyzers are called for each search request, so the tokens are
+	 * found by scanning the query instead of splitting it with a regular
+	 * expression.
+	 * 
+	 * @return index of the next non-whitespace char starting at 'from' or the
+	 *         length of the string if there is none
+	 */
+	static int skipWhitespace(String s, int from) {
+		while (from < s.length() && isWhitespace(s.charAt(from))) {
+			from++;
+		}
+		return from;
+	}
+
+	/**
+	 * @return index of the next whitespace char starting at 'from' or the
+	 *         length of the string if there is none
+	 */
+	static int findWhitespace(String s, int from) {
+		while (from < s.length() && !isWhitespace(s.charAt(from))) {
+			from++;
+		}
+		return from;
+	}
+
+	/**
+	 * Same whitespace chars as matched by the regex class '\s'.
+	 */
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
 }
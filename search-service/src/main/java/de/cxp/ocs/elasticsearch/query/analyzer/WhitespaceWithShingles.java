@@ -1,5 +1,8 @@
 package de.cxp.ocs.elasticsearch.query.analyzer;
 
+import static de.cxp.ocs.elasticsearch.query.analyzer.WhitespaceAnalyzer.findWhitespace;
+import static de.cxp.ocs.elasticsearch.query.analyzer.WhitespaceAnalyzer.skipWhitespace;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -11,16 +14,25 @@ public class WhitespaceWithShingles implements UserQueryAnalyzer {
 
 	@Override
 	public List<QueryStringTerm> analyze(String userQuery) {
-		String[] split = userQuery.toLowerCase().trim().split("\\s+");
+		String query = userQuery.toLowerCase();
 		List<QueryStringTerm> withShingles = new ArrayList<>();
 
-		for (int i = 0; i < split.length - 1; i++) {
-			withShingles.add(new WeightedWord(split[i]));
-			withShingles.add(new WeightedWord(split[i] + split[i + 1]));
+		String previousWord = null;
+		int end = 0;
+		int start;
+		while ((start = skipWhitespace(query, end)) < query.length()) {
+			end = findWhitespace(query, start);
+			String word = query.substring(start, end);
+			if (previousWord != null) {
+				withShingles.add(new WeightedWord(previousWord));
+				withShingles.add(new WeightedWord(previousWord + word));
+			}
+			previousWord = word;
 		}
-		withShingles.add(new WeightedWord(split[split.length - 1]));
+		// same as splitting an empty string
+		withShingles.add(new WeightedWord(previousWord == null ? "" : previousWord));
 
 		return withShingles;
 	}
 
-}
\ No newline at end of file
+}
@@ -56,7 +56,7 @@ public class ESQueryFactoryBuilder {
 		this.queryConfigs.forEach(qc -> queryConfigIndex.put(qc.getName(), qc));
 		
 		ExtensionSupplierRegistry<ESQueryFactory> esQueryFactoryRegistry = new ExtensionSupplierRegistry<ESQueryFactory>();
-		esQueryFactoryRegistry.register(PredictionQueryFactory.class, () -> new PredictionQueryFactory(new QueryPredictor(restClient, indexName)));
+		esQueryFactoryRegistry.register(PredictionQueryFactory.class, () -> new PredictionQueryFactory(new QueryPredictor(restClient, indexName, context.termAnalysisCache)));
 		esQueryFactoryRegistry.register(ConfigurableQueryFactory.class, ConfigurableQueryFactory::new);
 		esQueryFactoryRegistry.register(NgramQueryFactory.class, NgramQueryFactory::new);
 		esQueryFactoryRegistry.register(DefaultQueryFactory.class, DefaultQueryFactory::new);
@@ -50,6 +50,8 @@ import lombok.extern.slf4j.Slf4j;
  * Supported {@link QueryBuildingSetting}s:
  * <ul>
  * <li>'analyzer' that is used to match the configured fields.</li>
+ * <li>'termAnalysisStrategy' set to 'filters' to analyze the terms without
+ * script based aggregation.</li>
  * </ul>
  */
 @Slf4j
@@ -81,6 +83,7 @@ public class PredictionQueryFactory implements ESQueryFactory {
 		this.settings.putAll(settings);
 		this.fieldWeights.putAll(fieldWeights);
 		metaFetcher.setAnalyzer(settings.get(QueryBuildingSetting.analyzer));
+		metaFetcher.setFiltersAnalysis("filters".equalsIgnoreCase(settings.get(QueryBuildingSetting.termAnalysisStrategy)));
 		Optional.ofNullable(settings.get(QueryBuildingSetting.analyzer)).ifPresent(variantQueryFactory::setAnalyzer);
 	}
 
@@ -211,6 +214,18 @@ public class PredictionQueryFactory implements ESQueryFactory {
 		else return false;
 	}
 
+	/**
+	 * The query can only be created without a blocking request, if the term
+	 * analysis of the given search words was cached before.
+	 * 
+	 * @param searchWords
+	 *        analyzed search words
+	 * @return true if createQuery does not need to request Elasticsearch
+	 */
+	public boolean isTermAnalysisCached(final List<QueryStringTerm> searchWords) {
+		return metaFetcher.isTermAnalysisCached(searchWords, fieldWeights);
+	}
+
 	private List<PredictedQuery> predictQueries(final List<QueryStringTerm> searchWords) {
 		List<PredictedQuery> queryMetaData = null;
 
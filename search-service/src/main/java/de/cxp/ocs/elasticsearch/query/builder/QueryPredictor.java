@@ -3,15 +3,18 @@ package de.cxp.ocs.elasticsearch.query.builder;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
@@ -23,12 +26,15 @@ import org.elasticsearch.common.unit.Fuzziness;
 import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.ConstantScoreQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.index.query.QueryStringQueryBuilder;
 import org.elasticsearch.script.Script;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.filter.Filters;
+import org.elasticsearch.search.aggregations.bucket.filter.FiltersAggregator.KeyedFilter;
 import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
 import org.elasticsearch.search.aggregations.bucket.histogram.Histogram.Bucket;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
@@ -36,6 +42,7 @@ import org.elasticsearch.search.suggest.SuggestBuilder;
 
 import de.cxp.ocs.config.FieldConstants;
 import de.cxp.ocs.elasticsearch.SpellCorrector;
+import de.cxp.ocs.elasticsearch.query.builder.TermAnalysisCache.TermAnalysis;
 import de.cxp.ocs.elasticsearch.query.model.QueryStringTerm;
 import de.cxp.ocs.elasticsearch.query.model.WeightedWord;
 import de.cxp.ocs.elasticsearch.query.model.WordAssociation;
@@ -51,10 +58,26 @@ class QueryPredictor {
 
 	private final RestHighLevelClient	restClient;
 	private final String				indices;
+	private final TermAnalysisCache		termAnalysisCache;
+
+	/**
+	 * Above that amount of terms (including shingles), the score histogram is
+	 * used, even if the filters analysis is enabled.
+	 */
+	static final int MAX_FILTERS_ANALYSIS_TERMS = 7;
+
+	private static final String COMBINATIONS_AGG = "_term_combinations";
 
 	@Setter
 	private String analyzer;
 
+	/**
+	 * If set to true, the term combinations are counted with a filters
+	 * aggregation instead of a script based histogram on the score.
+	 */
+	@Setter
+	private boolean filtersAnalysis = false;
+
 	protected List<PredictedQuery> getQueryMetaData(final List<QueryStringTerm> searchTerms,
 			final Map<String, Float> fieldWeights)
 			throws IOException {
@@ -63,37 +86,48 @@ class QueryPredictor {
 		final Map<String, Set<String>> shingleSources = invertedIndex(shingles);
 
 		// ..and add them to the list of searched terms
-		final Set<QueryStringTerm> actualSearchTerms = new HashSet<>(searchTerms);
-		shingles.keySet().forEach(shingleWord -> actualSearchTerms.add(new WeightedWord(shingleWord)));
+		final Set<QueryStringTerm> actualSearchTerms = getActualSearchTerms(searchTerms, shingles);
 
-		final SpellCorrector corrector = getSpellCorrector(fieldWeights.keySet());
 		final Map<Float, WeightedWord> predictionWords = new LinkedHashMap<>();
-		final SearchResponse searchResponse = runTermAnalysis(
-				fieldWeights.keySet(),
-				actualSearchTerms,
-				predictionWords,
-				corrector);
+		final BoolQueryBuilder metaFetchQuery = buildMetaFetchQuery(fieldWeights.keySet(), actualSearchTerms, predictionWords);
+
+		final TermAnalysis termAnalysis;
+		if (termAnalysisCache == null) {
+			termAnalysis = runTermAnalysis(fieldWeights.keySet(), actualSearchTerms, metaFetchQuery);
+		}
+		else {
+			final String cacheKey = getCacheKey(fieldWeights.keySet(), actualSearchTerms);
+			Optional<TermAnalysis> cachedAnalysis = termAnalysisCache.get(cacheKey);
+			if (cachedAnalysis.isPresent()) {
+				termAnalysis = cachedAnalysis.get();
+			}
+			else {
+				termAnalysis = runTermAnalysis(fieldWeights.keySet(), actualSearchTerms, metaFetchQuery);
+				// a timed out analysis may be incomplete
+				if (!termAnalysis.isTimedOut()) {
+					termAnalysisCache.put(cacheKey, termAnalysis);
+				}
+			}
+		}
 
-		final Map<String, WordAssociation> correctedWords = corrector.extractRelatedWords(actualSearchTerms,
-				searchResponse
-						.getSuggest());
+		final Map<String, WordAssociation> correctedWords = termAnalysis.getCorrectedWords();
 
 		final Map<String, PredictedQuery> predictedQueries = new HashMap<>();
 		final Set<String> redundantQueries = new HashSet<>();
 		boolean hasFoundQueryWithAllTermsMatching = false;
-		for (final Bucket scoreBucket : ((Histogram) searchResponse.getAggregations().get("_score_histogram"))
-				.getBuckets()) {
+		for (int b = 0; b < termAnalysis.getScores().size(); b++) {
+			final long docCount = termAnalysis.getDocCounts().get(b);
 			final PredictedQuery predictedQuery = new PredictedQuery();
-			final LinkedHashMap<String, QueryStringTerm> matchingTerms = getMatchingTerms(predictionWords, scoreBucket);
+			final LinkedHashMap<String, QueryStringTerm> matchingTerms = getMatchingTerms(predictionWords, termAnalysis.getScores().get(b));
 			if (matchingTerms.size() == 1) {
 				String matchedTerm = matchingTerms.keySet().iterator().next();
 				predictionWords.values().stream()
 						.filter(term -> term.getWord().equals(matchedTerm))
 						.findFirst()
-						.ifPresent(term -> term.setTermFrequency((int) scoreBucket.getDocCount()));
+						.ifPresent(term -> term.setTermFrequency((int) docCount));
 			}
 
-			predictedQuery.matchCount = scoreBucket.getDocCount();
+			predictedQuery.matchCount = docCount;
 			predictedQuery.termsUnique.putAll(matchingTerms);
 			applyTermMatches(searchTerms, shingleSources, predictedQuery, correctedWords);
 			hasFoundQueryWithAllTermsMatching ^= predictedQuery.isContainsAllTerms();
@@ -195,23 +229,20 @@ class QueryPredictor {
 	}
 
 	/**
+	 * Builds a boolean-should query with exponential boost values, so the
+	 * score of each match is the unique sum of the weights of the matching
+	 * terms.
 	 *
-	 * @param fieldWeights
+	 * @param searchFields
 	 *        fields to search
 	 * @param terms
 	 * @param predictionWords
 	 *        empty map that will be filled with the exponential boost values of
 	 *        each term
-	 * @param corrector
 	 * @return
-	 * @throws IOException
 	 */
-	private SearchResponse runTermAnalysis(final Collection<String> searchFields, final Set<QueryStringTerm> terms,
-			final Map<Float, WeightedWord> predictionWords, final SpellCorrector corrector) throws IOException {
-		final SuggestBuilder spellCheckQuery = corrector.buildSpellCorrectionQuery(
-				terms.stream().map(qst -> qst.getWord()).collect(Collectors.joining(" ")));
-
-		// build boolean-should query with exponential boost values
+	private BoolQueryBuilder buildMetaFetchQuery(final Collection<String> searchFields, final Set<QueryStringTerm> terms,
+			final Map<Float, WeightedWord> predictionWords) {
 		final BoolQueryBuilder metaFetchQuery = QueryBuilders.boolQuery();
 		float queryWeight = (float) Math.pow(2, terms.size() - 1);
 		for (final QueryStringTerm term : terms) {
@@ -222,25 +253,188 @@ class QueryPredictor {
 					: new WeightedWord(term.getWord()));
 			queryWeight = queryWeight / 2;
 		}
+		return metaFetchQuery;
+	}
 
-		// add score histogram that is used later to retrieve the match counts
-		// of the single terms and their intersections
-		final AggregationBuilder scriptAgg = AggregationBuilders
-				.histogram("_score_histogram")
-				.interval(1)
-				.minDocCount(1)
-				.script(new Script("_score"));
+	/**
+	 * Checks if the term analysis of the given search terms can be taken from
+	 * the cache, so the query metadata can be built without a request.
+	 * 
+	 * @param searchTerms
+	 *        analyzed search terms
+	 * @param fieldWeights
+	 *        weighted search fields
+	 * @return true if the term analysis is cached
+	 */
+	boolean isTermAnalysisCached(final List<QueryStringTerm> searchTerms, final Map<String, Float> fieldWeights) {
+		if (termAnalysisCache == null) return false;
+		final Set<QueryStringTerm> actualSearchTerms = getActualSearchTerms(searchTerms, createOrderedShingles(searchTerms));
+		return termAnalysisCache.contains(getCacheKey(fieldWeights.keySet(), actualSearchTerms));
+	}
+
+	/**
+	 * The order of the returned terms determines their weights at the meta
+	 * fetch query and with that the score buckets of the term analysis. So
+	 * the terms are sorted, to get the same order and the same cache key for
+	 * the same terms, independent of the order they were analyzed in.
+	 */
+	static Set<QueryStringTerm> getActualSearchTerms(final List<QueryStringTerm> searchTerms, final Map<String, Set<String>> shingles) {
+		final Set<QueryStringTerm> uniqueSearchTerms = new HashSet<>(searchTerms);
+		shingles.keySet().forEach(shingleWord -> uniqueSearchTerms.add(new WeightedWord(shingleWord)));
+		return uniqueSearchTerms.stream()
+				.sorted(Comparator.comparing(QueryStringTerm::toQueryString))
+				.collect(Collectors.toCollection(LinkedHashSet::new));
+	}
+
+	/**
+	 * The key has to reflect the order of the terms, since that order
+	 * determines the weight of each term.
+	 */
+	private String getCacheKey(final Collection<String> searchFields, final Set<QueryStringTerm> terms) {
+		StringBuilder key = new StringBuilder(String.valueOf(analyzer)).append('|');
+		searchFields.stream().sorted().forEach(field -> key.append(field).append(','));
+		key.append('|');
+		for (QueryStringTerm term : terms) {
+			key.append(term.toQueryString()).append(' ');
+		}
+		return key.toString();
+	}
+
+	/**
+	 * @param searchFields
+	 *        fields to search
+	 * @param terms
+	 * @param metaFetchQuery
+	 *        query built with {@link #buildMetaFetchQuery}
+	 * @return the score buckets and the spell corrections
+	 * @throws IOException
+	 */
+	private TermAnalysis runTermAnalysis(final Collection<String> searchFields, final Set<QueryStringTerm> terms,
+			final BoolQueryBuilder metaFetchQuery) throws IOException {
+		final SpellCorrector corrector = getSpellCorrector(searchFields);
+		final SuggestBuilder spellCheckQuery = corrector.buildSpellCorrectionQuery(
+				terms.stream().map(qst -> qst.getWord()).collect(Collectors.joining(" ")));
+
+		final boolean useFilters = filtersAnalysis && metaFetchQuery.should().size() <= MAX_FILTERS_ANALYSIS_TERMS;
+		final AggregationBuilder analysisAgg;
+		if (useFilters) {
+			// one filter per term combination: no scripting necessary, but the
+			// amount of filters grows exponentially with the amount of terms
+			analysisAgg = AggregationBuilders.filters(COMBINATIONS_AGG, buildCombinationFilters(getTermQueries(metaFetchQuery)));
+		}
+		else {
+			// add score histogram that is used later to retrieve the match
+			// counts of the single terms and their intersections
+			analysisAgg = AggregationBuilders
+					.histogram("_score_histogram")
+					.interval(1)
+					.minDocCount(1)
+					.script(new Script("_score"));
+		}
 
 		final SearchResponse searchResponse = restClient
 				.search(new SearchRequest(indices)
 						.source(SearchSourceBuilder.searchSource()
 								.suggest(spellCheckQuery)
 								.query(metaFetchQuery)
-								.aggregation(scriptAgg)
+								.aggregation(analysisAgg)
 								.size(0)
 								.timeout(TimeValue.timeValueMillis(20))),
 						RequestOptions.DEFAULT);
-		return searchResponse;
+
+		final List<Float> scores = new ArrayList<>();
+		final List<Long> docCounts = new ArrayList<>();
+		if (useFilters) {
+			final Map<Integer, Long> combinationCounts = new HashMap<>();
+			for (final Filters.Bucket combinationBucket : ((Filters) searchResponse.getAggregations().get(COMBINATIONS_AGG)).getBuckets()) {
+				combinationCounts.put(Integer.parseInt(combinationBucket.getKeyAsString()), combinationBucket.getDocCount());
+			}
+			toScoreBuckets(getTermWeights(metaFetchQuery), combinationCounts, scores, docCounts);
+		}
+		else {
+			for (final Bucket scoreBucket : ((Histogram) searchResponse.getAggregations().get("_score_histogram")).getBuckets()) {
+				scores.add(Float.parseFloat(scoreBucket.getKeyAsString()));
+				docCounts.add(scoreBucket.getDocCount());
+			}
+		}
+		return new TermAnalysis(scores, docCounts, corrector.extractRelatedWords(terms, searchResponse.getSuggest()), searchResponse.isTimedOut());
+	}
+
+	private static List<QueryBuilder> getTermQueries(final BoolQueryBuilder metaFetchQuery) {
+		final List<QueryBuilder> termQueries = new ArrayList<>(metaFetchQuery.should().size());
+		for (QueryBuilder weightedTermQuery : metaFetchQuery.should()) {
+			termQueries.add(((ConstantScoreQueryBuilder) weightedTermQuery).innerQuery());
+		}
+		return termQueries;
+	}
+
+	private static float[] getTermWeights(final BoolQueryBuilder metaFetchQuery) {
+		final float[] weights = new float[metaFetchQuery.should().size()];
+		for (int t = 0; t < weights.length; t++) {
+			weights[t] = metaFetchQuery.should().get(t).boost();
+		}
+		return weights;
+	}
+
+	/**
+	 * Creates one filter for each possible combination of the given term
+	 * queries. Each filter matches the documents that match exactly the terms
+	 * of that combination, so every document is counted only once - the same
+	 * way the score histogram does. The key of each filter is the bit mask
+	 * of the contained term indexes.
+	 *
+	 * @param termQueries
+	 *        queries of the single terms
+	 * @return keyed filters
+	 */
+	static KeyedFilter[] buildCombinationFilters(final List<QueryBuilder> termQueries) {
+		final int combinationCount = (1 << termQueries.size()) - 1;
+		final KeyedFilter[] filters = new KeyedFilter[combinationCount];
+		for (int mask = 1; mask <= combinationCount; mask++) {
+			final BoolQueryBuilder combinationQuery = QueryBuilders.boolQuery();
+			for (int t = 0; t < termQueries.size(); t++) {
+				if ((mask & (1 << t)) != 0) {
+					combinationQuery.filter(termQueries.get(t));
+				}
+				else {
+					combinationQuery.mustNot(termQueries.get(t));
+				}
+			}
+			filters[mask - 1] = new KeyedFilter(String.valueOf(mask), combinationQuery);
+		}
+		return filters;
+	}
+
+	/**
+	 * Transforms the document counts of the term combinations into the same
+	 * buckets the score histogram would deliver: the score of a combination
+	 * is the sum of the weights of its terms. Empty combinations are skipped
+	 * and the buckets are ordered by score.
+	 *
+	 * @param weights
+	 *        weight of each term, index is the according bit of the mask
+	 * @param combinationCounts
+	 *        document counts per term combination bit mask
+	 * @param scores
+	 *        list that will be filled with the score of each bucket
+	 * @param docCounts
+	 *        list that will be filled with the document count of each bucket
+	 */
+	static void toScoreBuckets(final float[] weights, final Map<Integer, Long> combinationCounts, final List<Float> scores,
+			final List<Long> docCounts) {
+		final TreeMap<Float, Long> scoreBuckets = new TreeMap<>();
+		for (final Entry<Integer, Long> combinationCount : combinationCounts.entrySet()) {
+			if (combinationCount.getValue() == 0) continue;
+			float score = 0;
+			for (int t = 0; t < weights.length; t++) {
+				if ((combinationCount.getKey() & (1 << t)) != 0) {
+					score += weights[t];
+				}
+			}
+			scoreBuckets.put(score, combinationCount.getValue());
+		}
+		scores.addAll(scoreBuckets.keySet());
+		docCounts.addAll(scoreBuckets.values());
 	}
 
 	private SpellCorrector getSpellCorrector(final Collection<String> searchFields) {
@@ -285,13 +479,14 @@ class QueryPredictor {
 	 * terms.
 	 *
 	 * @param weightsPerTerm
-	 * @param scoreBucket
+	 * @param score
+	 *        key of the score bucket
 	 * @return
 	 */
 	private LinkedHashMap<String, QueryStringTerm> getMatchingTerms(final Map<Float, WeightedWord> weightsPerTerm,
-			final Bucket scoreBucket) {
+			final float score) {
 		final LinkedHashMap<String, QueryStringTerm> termsOrdered = new LinkedHashMap<>();
-		float additiveWeight = Float.parseFloat(scoreBucket.getKeyAsString());
+		float additiveWeight = score;
 		for (final Entry<Float, WeightedWord> weightPerTerm : weightsPerTerm.entrySet()) {
 			if (weightPerTerm.getKey() <= additiveWeight) {
 				additiveWeight -= weightPerTerm.getKey();
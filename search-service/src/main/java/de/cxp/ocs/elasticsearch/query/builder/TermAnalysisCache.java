@@ -0,0 +1,120 @@
+package de.cxp.ocs.elasticsearch.query.builder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+
+import de.cxp.ocs.elasticsearch.query.model.WordAssociation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Keeps the results of the term analysis done by the {@link QueryPredictor}.
+ * The match counts of the terms only change with a new index, so the cache is
+ * kept per tenant and must be invalidated as soon as the index behind the
+ * tenant changes.
+ */
+public class TermAnalysisCache {
+
+	private final Cache<String, TermAnalysis> cache;
+
+	@Getter
+	private final int maxSize;
+
+	@Getter
+	private final String indexName;
+
+	private final Counter	hitCounter;
+	private final Counter	missCounter;
+	private final Counter	evictionCounter;
+
+	public TermAnalysisCache(int maxSize, String indexName, MeterRegistry registry) {
+		this.maxSize = maxSize;
+		this.indexName = indexName;
+		hitCounter = getCounter("hit", indexName, registry);
+		missCounter = getCounter("miss", indexName, registry);
+		evictionCounter = getCounter("eviction", indexName, registry);
+		cache = CacheBuilder.newBuilder()
+				.maximumSize(maxSize)
+				.<String, TermAnalysis> removalListener(notification -> {
+					if (RemovalCause.SIZE.equals(notification.getCause())) {
+						evictionCounter.increment();
+					}
+				})
+				.build();
+	}
+
+	private static Counter getCounter(String type, String indexName, MeterRegistry registry) {
+		return Counter.builder("termAnalysisCache")
+				.tag("indexName", indexName)
+				.tag("type", type)
+				.register(registry);
+	}
+
+	Optional<TermAnalysis> get(String key) {
+		TermAnalysis analysis = cache.getIfPresent(key);
+		if (analysis == null) {
+			missCounter.increment();
+		}
+		else {
+			hitCounter.increment();
+		}
+		return Optional.ofNullable(analysis);
+	}
+
+	/**
+	 * Same as {@link #get(String)} but without counting a hit or miss.
+	 */
+	boolean contains(String key) {
+		return cache.getIfPresent(key) != null;
+	}
+
+	void put(String key, TermAnalysis analysis) {
+		cache.put(key, analysis);
+	}
+
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	/**
+	 * The score buckets of the term analysis together with the extracted spell
+	 * corrections.
+	 */
+	@RequiredArgsConstructor
+	static class TermAnalysis {
+
+		/**
+		 * Summed weights of the matching terms, one entry per score bucket.
+		 */
+		@Getter
+		private final List<Float> scores;
+
+		/**
+		 * Document count of the according score bucket.
+		 */
+		@Getter
+		private final List<Long> docCounts;
+
+		private final Map<String, WordAssociation> correctedWords;
+
+		@Getter
+		private final boolean timedOut;
+
+		/**
+		 * The corrected words are modified during the query prediction, so
+		 * every search gets its own copy.
+		 *
+		 * @return copy of the corrected words
+		 */
+		Map<String, WordAssociation> getCorrectedWords() {
+			return WordAssociation.deepCopy(correctedWords);
+		}
+	}
+}
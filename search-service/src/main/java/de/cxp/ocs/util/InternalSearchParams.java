@@ -3,6 +3,7 @@ package de.cxp.ocs.util;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import de.cxp.ocs.elasticsearch.query.filter.InternalResultFilter;
 import de.cxp.ocs.model.params.StaticProductSet;
@@ -28,6 +29,19 @@ public class InternalSearchParams {
 	 */
 	public boolean withFacets = true;
 
+	/**
+	 * Flag to specify if the facets should contain their values. If set to
+	 * false, only the names and the coverage of the top facets are returned,
+	 * so the values can be fetched lazily for single facets. Default: true
+	 */
+	public boolean withFacetValues = true;
+
+	/**
+	 * If set, only the facets for these fields are built and no hits are
+	 * fetched. Used to load the values of single facets.
+	 */
+	public Set<String> includedFacets;
+
 	/**
 	 * Flag to specify if the full documents should be returned or not. Default:
 	 * true.
@@ -35,6 +49,18 @@ public class InternalSearchParams {
 	 */
 	public boolean withResultData = true;
 
+	/**
+	 * If set, only these result fields are fetched for the hits. Otherwise all
+	 * result data is fetched.
+	 */
+	public Set<String> resultFields;
+
+	/**
+	 * Flag to add a breakdown of the time spent in the single search steps to
+	 * the meta data of the result. Default: false
+	 */
+	public boolean withTimings = false;
+
 	public List<Sorting> sortings = new ArrayList<>();
 
 	public List<InternalResultFilter> filters = new ArrayList<>();
@@ -10,10 +10,12 @@ import static org.apache.commons.lang3.StringUtils.splitPreserveAllTokens;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
 
 import de.cxp.ocs.SearchContext;
 import de.cxp.ocs.config.Field;
@@ -36,12 +38,19 @@ public class SearchParamsParser {
 
 	public final static String ID_FILTER_SUFFIX = ".id";
 
+	public final static String WITH_TIMINGS_PARAM = "withTimings";
+
+	public final static String WITH_FACET_VALUES_PARAM = "withFacetValues";
+
+	public final static String FACETS_PARAM = "facets";
+
 	public static InternalSearchParams extractInternalParams(SearchQuery searchQuery, Map<String, String> filters, SearchContext searchContext) {
 		final InternalSearchParams parameters = new InternalSearchParams();
 		parameters.limit = searchQuery.limit;
 		parameters.offset = searchQuery.offset;
 		parameters.withFacets = searchQuery.withFacets;
 		parameters.userQuery = searchQuery.q;
+		parameters.resultFields = parseResultFields(searchQuery.fields, searchContext.getFieldConfigIndex());
 
 		if (searchQuery.sort != null) {
 			parameters.sortings = parseSortings(searchQuery.sort, searchContext.getFieldConfigIndex());
@@ -53,11 +62,40 @@ public class SearchParamsParser {
 			customParams.remove(f.getField().getName());
 			customParams.remove(f.getField().getName() + SearchParamsParser.ID_FILTER_SUFFIX);
 		});
+		parameters.withTimings = Boolean.parseBoolean(customParams.remove(WITH_TIMINGS_PARAM));
+		parameters.withFacetValues = !"false".equalsIgnoreCase(customParams.remove(WITH_FACET_VALUES_PARAM));
 		parameters.customParams = customParams;
 
 		return parameters;
 	}
 
+	/**
+	 * Extracts the requested result fields. Only fields with the usage 'Result'
+	 * are considered.
+	 * 
+	 * @param fields
+	 *        comma separated field names
+	 * @param fieldConfig
+	 *        the field configuration
+	 * @return valid result field names or null if all result data should be
+	 *         fetched
+	 */
+	public static Set<String> parseResultFields(String fields, FieldConfigIndex fieldConfig) {
+		if (fields == null || fields.isEmpty()) return null;
+
+		Set<String> resultFields = new LinkedHashSet<>();
+		for (String fieldName : split(fields, VALUE_DELIMITER)) {
+			fieldName = fieldName.trim();
+			if (fieldConfig.getMatchingField(fieldName, FieldUsage.RESULT).isPresent()) {
+				resultFields.add(fieldName);
+			}
+			else {
+				log.debug("ignoring requested field {}, since it's not a result field", fieldName);
+			}
+		}
+		return resultFields.isEmpty() ? null : resultFields;
+	}
+
 	/**
 	 * Checks the parameter map for valid filters and extracts them into
 	 * InternalResultFilter objects.
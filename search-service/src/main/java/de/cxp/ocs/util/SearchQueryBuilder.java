@@ -72,12 +72,17 @@ public class SearchQueryBuilder {
 		if (!params.sortings.isEmpty()) {
 			urlParams.put("sort", getSortingsString(params.sortings));
 		}
+		if (params.resultFields != null) {
+			urlParams.put("fields", StringUtils.join(params.resultFields, VALUE_DELIMITER));
+		}
 		if (defaultParams.limit != params.limit)
 			urlParams.put("limit", String.valueOf(params.limit));
 		if (defaultParams.offset != params.offset)
 			urlParams.put("offset", String.valueOf(params.offset));
 		if (defaultParams.withFacets != params.withFacets)
 			urlParams.put("withFacets", String.valueOf(params.withFacets));
+		if (defaultParams.withFacetValues != params.withFacetValues)
+			urlParams.put(SearchParamsParser.WITH_FACET_VALUES_PARAM, String.valueOf(params.withFacetValues));
 		return urlParams.build();
 	}
 
@@ -0,0 +1,151 @@
+package de.cxp.ocs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+
+import de.cxp.ocs.config.ResultCacheConfiguration;
+import de.cxp.ocs.model.index.Document;
+import de.cxp.ocs.model.index.Product;
+import de.cxp.ocs.model.result.ResultHit;
+import de.cxp.ocs.model.result.SearchResult;
+import de.cxp.ocs.model.result.SearchResultSlice;
+import de.cxp.ocs.util.InternalSearchParams;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ResultCacheTest {
+
+	@Test
+	public void testCopyIsIndependentFromCachedResult() {
+		SearchResult cachedResult = new SearchResult()
+				.setSlices(new ArrayList<>(Arrays.asList(new SearchResultSlice()
+						.setHits(new ArrayList<>(Arrays.asList(new ResultHit().setDocument(new Document("1").set("title", "shoe")))))
+						.setFacets(new ArrayList<>()))))
+				.setMeta(new LinkedHashMap<>());
+
+		SearchResult copy = ResultCache.copy(cachedResult);
+		copy.getSlices().get(0).getHits().add(0, new ResultHit().setDocument(new Document("hero")));
+		copy.getSlices().get(0).getHits().get(1).getDocument().set("title", "boot");
+		copy.getSlices().add(new SearchResultSlice());
+
+		assertNotSame(cachedResult.getSlices(), copy.getSlices());
+		assertEquals(1, cachedResult.getSlices().size());
+		assertEquals(1, cachedResult.getSlices().get(0).getHits().size());
+		assertEquals("1", cachedResult.getSlices().get(0).getHits().get(0).getDocument().getId());
+		assertEquals("shoe", cachedResult.getSlices().get(0).getHits().get(0).getDocument().getData().get("title"));
+	}
+
+	@Test
+	public void testKeyDependsOnResultFields() {
+		String key = ResultCache.createKey(new InternalSearchParams().setUserQuery("shoe"));
+		String keyWithFields = ResultCache.createKey(new InternalSearchParams().setUserQuery("shoe")
+				.setResultFields(Collections.singleton("title")));
+
+		assertNotEquals(key, keyWithFields);
+		assertNotEquals(keyWithFields, ResultCache.createKey(new InternalSearchParams().setUserQuery("shoe")
+				.setResultFields(Collections.singleton("price"))));
+	}
+
+	@Test
+	public void testKeyDependsOnIncludedFacetsButNotOnTheirOrder() {
+		String key = ResultCache.createKey(new InternalSearchParams().setUserQuery("shoe"));
+		String keyWithFacets = ResultCache.createKey(new InternalSearchParams().setUserQuery("shoe")
+				.setIncludedFacets(new LinkedHashSet<>(Arrays.asList("brand", "color"))));
+
+		assertNotEquals(key, keyWithFacets);
+		assertEquals(keyWithFacets, ResultCache.createKey(new InternalSearchParams().setUserQuery("shoe")
+				.setIncludedFacets(new LinkedHashSet<>(Arrays.asList("color", "brand")))));
+	}
+
+	@Test
+	public void testKeyDependsOnCustomParamsButNotOnTheirOrder() {
+		String key = ResultCache.createKey(new InternalSearchParams().setUserQuery("shoe"));
+		LinkedHashMap<String, String> customParams = new LinkedHashMap<>();
+		customParams.put("user", "1");
+		customParams.put("channel", "app");
+		String keyWithCustomParams = ResultCache.createKey(new InternalSearchParams().setUserQuery("shoe")
+				.setCustomParams(customParams));
+
+		LinkedHashMap<String, String> reorderedCustomParams = new LinkedHashMap<>();
+		reorderedCustomParams.put("channel", "app");
+		reorderedCustomParams.put("user", "1");
+
+		assertNotEquals(key, keyWithCustomParams);
+		assertEquals(keyWithCustomParams, ResultCache.createKey(new InternalSearchParams().setUserQuery("shoe")
+				.setCustomParams(reorderedCustomParams)));
+		assertNotEquals(keyWithCustomParams, ResultCache.createKey(new InternalSearchParams().setUserQuery("shoe")
+				.setCustomParams(Collections.singletonMap("user", "2"))));
+	}
+
+	@Test
+	public void testKeyDependsOnWithResultData() {
+		assertNotEquals(ResultCache.createKey(new InternalSearchParams().setUserQuery("shoe")),
+				ResultCache.createKey(new InternalSearchParams().setUserQuery("shoe").setWithResultData(false)));
+	}
+
+	@Test
+	public void testSizeEstimationIncludesVariants() {
+		Product product = new Product("1");
+		product.set("title", "shoe");
+		long productSize = ResultCache.estimateSize("key", resultWith(product));
+
+		product.variants = new Document[] { new Document("1.1").set("size", "42"), new Document("1.2").set("size", "43") };
+		long productWithVariantsSize = ResultCache.estimateSize("key", resultWith(product));
+
+		assertTrue(productWithVariantsSize > productSize);
+	}
+
+	@Test
+	public void testEntriesAreEvictedByWeight() {
+		MeterRegistry registry = new SimpleMeterRegistry();
+		AtomicLong memoryFootprint = new AtomicLong();
+		ResultCache underTest = new ResultCache(new ResultCacheConfiguration().setMaxEntries(4).setMaxMemoryMb(1), "test", memoryFootprint, registry);
+
+		for (int i = 0; i < 20; i++) {
+			underTest.put("key" + i, resultWith(new Document(String.valueOf(i)).set("title", "shoe")));
+		}
+
+		int cachedEntries = 0;
+		long cachedSize = 0;
+		for (int i = 0; i < 20; i++) {
+			if (underTest.getIfPresent("key" + i) != null) {
+				cachedEntries++;
+				cachedSize += ResultCache.estimateSize("key" + i, resultWith(new Document(String.valueOf(i)).set("title", "shoe")));
+			}
+		}
+		assertTrue(cachedEntries > 0);
+		assertTrue(cachedEntries <= 4, "small entries weigh at least their share of the max memory");
+		assertEquals(20 - cachedEntries, registry.get("resultCache").tag("type", "eviction").counter().count());
+		assertEquals(cachedSize, memoryFootprint.get());
+	}
+
+	@Test
+	public void testResultsBiggerThanMaxMemoryAreNotCached() {
+		AtomicLong memoryFootprint = new AtomicLong();
+		ResultCache underTest = new ResultCache(new ResultCacheConfiguration().setMaxEntries(4).setMaxMemoryMb(1), "test", memoryFootprint, new SimpleMeterRegistry());
+
+		underTest.put("key", resultWith(new Document("1").set("title", StringUtils.repeat('x', 1024 * 1024))));
+
+		assertNull(underTest.getIfPresent("key"));
+		assertEquals(0, memoryFootprint.get());
+	}
+
+	private static SearchResult resultWith(Document document) {
+		return new SearchResult()
+				.setSlices(Collections.singletonList(new SearchResultSlice()
+						.setHits(Collections.singletonList(new ResultHit().setDocument(document)))));
+	}
+}
@@ -0,0 +1,57 @@
+package de.cxp.ocs.elasticsearch.facets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.junit.jupiter.api.Test;
+
+import de.cxp.ocs.config.FieldConstants;
+
+public class NestedPathFacetCreatorTest {
+
+	@Test
+	public void testCreatorsOnSameNestedPathAreGrouped() {
+		FacetCreator termFacetCreator = new TermFacetCreator(Collections.emptyMap(), null);
+		FacetCreator intervalFacetCreator = new IntervalFacetCreator(Collections.emptyMap(), null);
+		FacetCreator rangeFacetCreator = new RangeFacetCreator(new HashMap<>(), null);
+
+		List<FacetCreator> groupedCreators = NestedPathFacetCreator.groupByNestedPath(Arrays.asList(termFacetCreator, intervalFacetCreator, rangeFacetCreator));
+		assertEquals(2, groupedCreators.size());
+		assertEquals(termFacetCreator, groupedCreators.get(0));
+		assertTrue(groupedCreators.get(1) instanceof NestedPathFacetCreator);
+
+		AggregationBuilder nestedAgg = groupedCreators.get(1).buildAggregation();
+		assertEquals("_nested_" + FieldConstants.NUMBER_FACET_DATA, nestedAgg.getName());
+		assertEquals(2, nestedAgg.getSubAggregations().size());
+	}
+
+	@Test
+	public void testVariantCreatorsAreGrouped() {
+		VariantFacetCreator variantFacetCreator = new VariantFacetCreator(Arrays.asList(
+				new TermFacetCreator(Collections.emptyMap(), null),
+				new IntervalFacetCreator(Collections.emptyMap(), null),
+				new RangeFacetCreator(new HashMap<>(), null)));
+
+		AggregationBuilder variantsAgg = variantFacetCreator.buildExcludeFilteredAggregation(Collections.singleton("price"));
+		assertEquals(2, variantsAgg.getSubAggregations().size());
+		assertTrue(variantsAgg.getSubAggregations().stream()
+				.anyMatch(agg -> agg.getName().equals("_nested_" + FieldConstants.VARIANTS + "." + FieldConstants.NUMBER_FACET_DATA)));
+	}
+
+	@Test
+	public void testFacetNamesAggregationWithoutValues() {
+		FacetCreator intervalFacetCreator = new IntervalFacetCreator(Collections.emptyMap(), null);
+		AggregationBuilder namesAgg = intervalFacetCreator.buildFacetNamesAggregation()
+				.getSubAggregations().iterator().next()
+				.getSubAggregations().iterator().next();
+		assertEquals(NestedFacetCreator.FACET_NAMES_AGG, namesAgg.getName());
+		assertEquals(1, namesAgg.getSubAggregations().size());
+		assertEquals(NestedFacetCreator.FACET_COVERAGE_AGG, namesAgg.getSubAggregations().iterator().next().getName());
+	}
+}
@@ -0,0 +1,144 @@
+package de.cxp.ocs.elasticsearch.prodset;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.IdsQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.junit.jupiter.api.Test;
+
+import de.cxp.ocs.model.params.DynamicProductSet;
+import de.cxp.ocs.model.params.ProductSet;
+import de.cxp.ocs.model.params.StaticProductSet;
+import de.cxp.ocs.util.InternalSearchParams;
+
+public class HeroProductHandlerTest {
+
+	@Test
+	public void testSmallSetIsOrderedByQuery() {
+		BoolQueryBuilder heroQuery = getHeroQuery(ids(0, 100));
+		BoolQueryBuilder setQuery = (BoolQueryBuilder) heroQuery.should().get(0);
+		assertEquals(100, setQuery.should().size());
+
+		float previousBoost = Float.MAX_VALUE;
+		for (int i = 0; i < 100; i++) {
+			IdsQueryBuilder idsQuery = (IdsQueryBuilder) setQuery.should().get(i);
+			assertEquals(1, idsQuery.ids().size());
+			assertTrue(idsQuery.ids().contains("p" + i));
+			assertTrue(idsQuery.boost() < previousBoost);
+			previousBoost = idsQuery.boost();
+		}
+	}
+
+	@Test
+	public void testLargeSetIsSplitIntoNestedQueries() {
+		BoolQueryBuilder heroQuery = getHeroQuery(ids(0, 10_000));
+		BoolQueryBuilder setQuery = (BoolQueryBuilder) heroQuery.should().get(0);
+		assertTrue(setQuery.should().size() <= HeroProductHandler.MAX_CLAUSES);
+
+		// all IDs are contained in order
+		List<String> nestedIds = new ArrayList<>();
+		for (QueryBuilder nestedQuery : setQuery.should()) {
+			List<QueryBuilder> idsQueries = ((BoolQueryBuilder) nestedQuery).should();
+			assertTrue(idsQueries.size() <= HeroProductHandler.MAX_CLAUSES);
+			for (QueryBuilder idsQuery : idsQueries) {
+				nestedIds.addAll(((IdsQueryBuilder) idsQuery).ids());
+			}
+		}
+		assertArrayEquals(ids(0, 10_000), nestedIds.toArray());
+	}
+
+	@Test
+	public void testScoresFollowPositionAcrossSetsAndPages() {
+		// second set repeats an ID of the first set, that must keep its
+		// first position
+		String[] secondSet = Stream.concat(Stream.of("p5"), Arrays.stream(ids(1200, 11_200))).toArray(String[]::new);
+		BoolQueryBuilder heroQuery = getHeroQuery(ids(0, 1200), secondSet);
+
+		Map<String, Float> scores = new HashMap<>();
+		collectScores(heroQuery, 1f, scores);
+
+		String[] expectedOrder = ids(0, 11_200);
+		assertEquals(expectedOrder.length, scores.size());
+		float previousScore = Float.MAX_VALUE;
+		for (String id : expectedOrder) {
+			float score = scores.get(id);
+			assertTrue(score < previousScore, "score of " + id + " is not below the score of its predecessor");
+			assertTrue(previousScore - score >= HeroProductHandler.RANK_STEP, "score gap before " + id + " is too small");
+			previousScore = score;
+		}
+
+		// scores of the generic user query must not change the order: page
+		// 12 spans the border between the sets and page 100 is inside the
+		// large set, where the old query only ordered chunks of IDs
+		List<String> ranked = Arrays.stream(expectedOrder)
+				.sorted(Comparator.comparing((String id) -> scores.get(id) + (id.hashCode() & 0xFF)).reversed())
+				.collect(Collectors.toList());
+		assertEquals(Arrays.asList(ids(1150, 1250)), ranked.subList(1150, 1250));
+		assertEquals(Arrays.asList(ids(9950, 10_050)), ranked.subList(9950, 10_050));
+	}
+
+	@Test
+	public void testFailedProductSetsAreResolvedEmpty() {
+		// without searcher and context, resolving any set fails
+		ProductSet[] productSets = new ProductSet[] {
+				new DynamicProductSet().setName("dynamic").setQuery("foo"),
+				new StaticProductSet(ids(0, 3), "static") };
+
+		StaticProductSet[] resolvedSets = HeroProductHandler.resolveAsync(productSets, null, null).join();
+		assertEquals(2, resolvedSets.length);
+		assertEquals("dynamic", resolvedSets[0].getName());
+		assertEquals(0, resolvedSets[0].getIds().length);
+		assertEquals("static", resolvedSets[1].getName());
+		assertEquals(0, resolvedSets[1].getIds().length);
+		assertTrue(HeroProductHandler.getHeroQuery(new InternalSearchParams().setHeroProductSets(resolvedSets)).isPresent());
+
+		resolvedSets = HeroProductHandler.resolve(new ProductSet[] { productSets[0] }, null, null);
+		assertEquals(1, resolvedSets.length);
+		assertEquals(0, resolvedSets[0].getIds().length);
+	}
+
+	/**
+	 * Calculates the scores Elasticsearch assigns to the documents with the
+	 * matching IDs: ids queries score with their boost and boolean queries sum
+	 * up the scores of their matching should clauses.
+	 */
+	private static void collectScores(QueryBuilder query, float boost, Map<String, Float> scores) {
+		if (query instanceof IdsQueryBuilder) {
+			for (String id : ((IdsQueryBuilder) query).ids()) {
+				scores.merge(id, boost * query.boost(), Float::sum);
+			}
+			return;
+		}
+		for (QueryBuilder clause : ((BoolQueryBuilder) query).should()) {
+			collectScores(clause, boost * query.boost(), scores);
+		}
+	}
+
+	private static BoolQueryBuilder getHeroQuery(String[]... productSetIds) {
+		StaticProductSet[] productSets = new StaticProductSet[productSetIds.length];
+		for (int i = 0; i < productSetIds.length; i++) {
+			productSets[i] = new StaticProductSet(productSetIds[i], "set" + i);
+		}
+		return HeroProductHandler.getHeroQuery(new InternalSearchParams().setHeroProductSets(productSets)).get();
+	}
+
+	private static String[] ids(int from, int to) {
+		String[] ids = new String[to - from];
+		for (int i = from; i < to; i++) {
+			ids[i - from] = "p" + i;
+		}
+		return ids;
+	}
+}
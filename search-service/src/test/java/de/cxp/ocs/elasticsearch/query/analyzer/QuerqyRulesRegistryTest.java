@@ -0,0 +1,58 @@
+package de.cxp.ocs.elasticsearch.query.analyzer;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+
+import de.cxp.ocs.elasticsearch.query.analyzer.QuerqyRulesRegistry.RulesHolder;
+import querqy.rewrite.RewriteChain;
+
+public class QuerqyRulesRegistryTest {
+
+	@Test
+	public void testRulesAreOnlyCompiledOnChange() throws Exception {
+		File rulesFile = Files.createTempFile("querqy_rules", ".txt").toFile();
+		rulesFile.deleteOnExit();
+		Files.write(rulesFile.toPath(), "shoe =>\n  SYNONYM: boot\n".getBytes(StandardCharsets.UTF_8));
+
+		RulesHolder rules = QuerqyRulesRegistry.getRules(rulesFile.getAbsolutePath());
+		assertNotNull(rules);
+		RewriteChain initialChain = rules.getRewriteChain();
+		assertNotNull(initialChain);
+
+		// unchanged source is shared
+		assertSame(rules, QuerqyRulesRegistry.getRules(rulesFile.getAbsolutePath()));
+		assertSame(initialChain, rules.getRewriteChain());
+
+		// changed source is compiled again and swapped in the same holder
+		Files.write(rulesFile.toPath(), "shoe =>\n  SYNONYM: boot\n  SYNONYM: sneaker\n".getBytes(StandardCharsets.UTF_8));
+		assertSame(rules, QuerqyRulesRegistry.getRules(rulesFile.getAbsolutePath()));
+		assertNotSame(initialChain, rules.getRewriteChain());
+	}
+
+	@Test
+	public void testRefreshAllReloadsChangedRules() throws Exception {
+		File rulesFile = Files.createTempFile("querqy_rules", ".txt").toFile();
+		rulesFile.deleteOnExit();
+		Files.write(rulesFile.toPath(), "shoe =>\n  SYNONYM: boot\n".getBytes(StandardCharsets.UTF_8));
+
+		RulesHolder rules = QuerqyRulesRegistry.getRules(rulesFile.getAbsolutePath());
+		RewriteChain initialChain = rules.getRewriteChain();
+
+		Files.write(rulesFile.toPath(), "shoe =>\n  SYNONYM: boot\n  SYNONYM: sneaker\n".getBytes(StandardCharsets.UTF_8));
+		QuerqyRulesRegistry.refreshAll();
+		assertNotSame(initialChain, rules.getRewriteChain());
+	}
+
+	@Test
+	public void testMissingRules() {
+		assertNull(QuerqyRulesRegistry.getRules("rules/missing_querqy_rules.txt"));
+	}
+}
@@ -0,0 +1,35 @@
+package de.cxp.ocs.elasticsearch.query.analyzer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import de.cxp.ocs.elasticsearch.query.model.QueryStringTerm;
+
+public class WhitespaceAnalyzerTest {
+
+	@Test
+	public void testWhitespaceAnalyzer() {
+		WhitespaceAnalyzer analyzer = new WhitespaceAnalyzer();
+		assertEquals(Arrays.asList("red", "shoes"), words(analyzer.analyze("Red Shoes")));
+		assertEquals(Arrays.asList("red", "shoes", "42"), words(analyzer.analyze(" \tred  shoes\n42 ")));
+		assertEquals(Arrays.asList("shoes"), words(analyzer.analyze("shoes")));
+		assertEquals(Arrays.asList(""), words(analyzer.analyze("  ")));
+	}
+
+	@Test
+	public void testWhitespaceWithShingles() {
+		WhitespaceWithShingles analyzer = new WhitespaceWithShingles();
+		assertEquals(Arrays.asList("red", "redsport", "sport", "sportshoes", "shoes"), words(analyzer.analyze(" Red sport  Shoes")));
+		assertEquals(Arrays.asList("shoes"), words(analyzer.analyze("shoes ")));
+		assertEquals(Arrays.asList(""), words(analyzer.analyze(" ")));
+	}
+
+	private static List<String> words(List<QueryStringTerm> terms) {
+		return terms.stream().map(QueryStringTerm::getWord).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,84 @@
+package de.cxp.ocs.elasticsearch.query.builder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.aggregations.bucket.filter.FiltersAggregator.KeyedFilter;
+import org.junit.jupiter.api.Test;
+
+import de.cxp.ocs.elasticsearch.query.model.QueryStringTerm;
+import de.cxp.ocs.elasticsearch.query.model.WeightedWord;
+
+public class QueryPredictorTest {
+
+	@Test
+	public void testCombinationFilters() {
+		List<QueryBuilder> termQueries = new ArrayList<>();
+		for (String term : new String[] { "a", "b", "c" }) {
+			termQueries.add(QueryBuilders.termQuery("searchData.title", term));
+		}
+
+		KeyedFilter[] filters = QueryPredictor.buildCombinationFilters(termQueries);
+		assertEquals(7, filters.length);
+
+		// mask 5 = terms at index 0 and 2
+		BoolQueryBuilder combinationQuery = (BoolQueryBuilder) filters[4].filter();
+		assertEquals("5", filters[4].key());
+		assertEquals(2, combinationQuery.filter().size());
+		assertEquals(termQueries.get(0), combinationQuery.filter().get(0));
+		assertEquals(termQueries.get(2), combinationQuery.filter().get(1));
+		assertEquals(1, combinationQuery.mustNot().size());
+		assertEquals(termQueries.get(1), combinationQuery.mustNot().get(0));
+	}
+
+	@Test
+	public void testScoreBucketsOfCombinationCounts() {
+		// exponential weights, same as the meta fetch query
+		float[] weights = new float[] { 4f, 2f, 1f };
+		Map<Integer, Long> combinationCounts = new HashMap<>();
+		combinationCounts.put(1, 5L); // term 0
+		combinationCounts.put(2, 3L); // term 1
+		combinationCounts.put(3, 0L); // terms 0 and 1: empty
+		combinationCounts.put(4, 2L); // term 2
+		combinationCounts.put(5, 1L); // terms 0 and 2
+		combinationCounts.put(6, 0L); // terms 1 and 2: empty
+		combinationCounts.put(7, 4L); // all terms
+
+		List<Float> scores = new ArrayList<>();
+		List<Long> docCounts = new ArrayList<>();
+		QueryPredictor.toScoreBuckets(weights, combinationCounts, scores, docCounts);
+
+		assertEquals(Arrays.asList(1f, 2f, 4f, 5f, 7f), scores);
+		assertEquals(Arrays.asList(2L, 3L, 5L, 1L, 4L), docCounts);
+	}
+
+	@Test
+	public void testSearchTermsOrderIsIndependentOfInputOrder() {
+		List<QueryStringTerm> terms = new ArrayList<>();
+		for (String word : new String[] { "shoe", "red", "leather", "men", "boot", "black" }) {
+			terms.add(new WeightedWord(word));
+		}
+		Map<String, Set<String>> shingles = Collections.singletonMap("redshoe", new HashSet<>(Arrays.asList("red", "shoe")));
+
+		List<String> expectedOrder = Arrays.asList("black", "boot", "leather", "men", "red", "redshoe", "shoe");
+		assertEquals(expectedOrder, toWords(QueryPredictor.getActualSearchTerms(terms, shingles)));
+		Collections.reverse(terms);
+		assertEquals(expectedOrder, toWords(QueryPredictor.getActualSearchTerms(terms, shingles)));
+	}
+
+	private static List<String> toWords(Set<QueryStringTerm> terms) {
+		return terms.stream().map(QueryStringTerm::getWord).collect(Collectors.toList());
+	}
+}
@@ -1,8 +1,10 @@
 package de.cxp.ocs.util;
 
 import static de.cxp.ocs.util.SearchParamsParser.parseFilters;
+import static de.cxp.ocs.util.SearchParamsParser.parseResultFields;
 import static de.cxp.ocs.util.SearchParamsParser.parseSortings;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Collections;
@@ -75,4 +77,11 @@ public class SearchParamsParserTest {
 		assertEquals("price", sortings.get(0).field);
 		assertEquals(SortOrder.DESC, sortings.get(0).sortOrder);
 	}
+
+	@Test
+	public void parseResultFieldsIgnoresNonResultFields() {
+		assertEquals(Collections.singleton("image"), parseResultFields("image, brand,unknown", fieldConfIndex));
+		assertNull(parseResultFields("brand", fieldConfIndex));
+		assertNull(parseResultFields(null, fieldConfIndex));
+	}
 }